@@ -1,15 +1,33 @@
 package com.example.todo.listener;
 
+import com.example.todo.service.CachingTodoStorage;
+import com.example.todo.service.HealthProber;
+import com.example.todo.service.TodoChangeFeed;
+import com.example.todo.service.TodoMetrics;
 import com.example.todo.service.TodoStorage;
+import com.example.todo.servlet.DispatchingServlet;
 import com.example.todo.servlet.HealthCheckServlet;
+import com.example.todo.servlet.MetricsServlet;
+import com.example.todo.servlet.TodoAdminServlet;
+import com.example.todo.servlet.TodoEventServlet;
 import com.example.todo.servlet.TodoServlet;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.pool.HikariPool.PoolInitializationException;
+import org.postgresql.ds.PGSimpleDataSource;
 import javax.servlet.ServletContext;
 import javax.servlet.ServletContextEvent;
 import javax.servlet.ServletContextListener;
 import javax.servlet.ServletRegistration;
-import java.sql.Connection;
-import java.sql.DriverManager;
-import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -19,7 +37,10 @@
 public class TodoContextListener implements ServletContextListener {
     private static final Logger logger = LoggerFactory.getLogger(TodoContextListener.class);
     private TodoStorage storage;
-    private Connection connection;
+    private HealthProber healthProber;
+    private ExecutorService requestExecutor;
+    private ScheduledExecutorService changeLogPruner;
+    private TodoChangeFeed changeFeed;
 
     @Override
     public void contextInitialized(ServletContextEvent sce) {
@@ -30,36 +51,98 @@ public void contextInitialized(ServletContextEvent sce) {
             Class.forName("org.postgresql.Driver");
             logger.info("PostgreSQL driver loaded");
 
-            // Initialize database connection
-            String dbHost = System.getenv("DB_HOST");
-            String dbPort = System.getenv("DB_PORT");
-            String dbName = System.getenv("DB_NAME");
-            String dbUser = System.getenv("DB_USER");
-            String dbPassword = System.getenv("DB_PASSWORD");
+            // Initialize database connection pool
+            HikariDataSource dataSource = createDataSource();
+            logger.info("Database connection pool established");
             
-            String url = String.format("jdbc:postgresql://%s:%s/%s", dbHost, dbPort, dbName);
-            connection = DriverManager.getConnection(url, dbUser, dbPassword);
-            logger.info("Database connection established");
-            
-            // Initialize storage with connection
-            storage = new TodoStorage(connection);
+            // Initialize storage with the pool, optionally behind the in-process cache
+            if (Boolean.parseBoolean(getEnv("CACHE_ENABLED", "true"))) {
+                storage = new CachingTodoStorage(dataSource,
+                    getEnvInt("CACHE_MAX_TODOS", 10000),
+                    getEnvInt("CACHE_MAX_LIST_ITEMS", 50000),
+                    Duration.ofSeconds(getEnvInt("CACHE_TTL_SECONDS", 60)));
+            } else {
+                storage = new TodoStorage(dataSource);
+            }
             storage.initializeDatabase();
+            TodoMetrics metrics = new TodoMetrics();
+            storage.setMetrics(metrics);
 
             ServletContext context = sce.getServletContext();
             context.setAttribute("todoStorage", storage);
+            context.setAttribute(DispatchingServlet.METRICS_ATTRIBUTE, metrics);
+
+            // Probe the database in the background; health endpoints read the cached result
+            healthProber = new HealthProber(storage,
+                getEnvInt("HEALTH_CHECK_INTERVAL", 5000),
+                getEnvInt("HEALTH_MAX_LATENCY_MS", 500));
+            context.setAttribute("healthProber", healthProber);
+
+            // Keep the change log behind /api/todos/changes from growing without bound
+            changeLogPruner = createChangeLogPruner(
+                Duration.ofHours(getEnvInt("CHANGE_LOG_RETENTION_HOURS", 24)));
+
+            // Storage work runs on a bounded executor, on virtual threads where enabled
+            requestExecutor = createRequestExecutor(
+                Boolean.parseBoolean(getEnv("VIRTUAL_THREADS_ENABLED", "false")));
+            context.setAttribute(DispatchingServlet.EXECUTOR_ATTRIBUTE, requestExecutor);
+            String retryAfter = String.valueOf(getEnvInt("REQUEST_RETRY_AFTER_SECONDS", 1));
 
             // Register TodoServlet
             TodoServlet todoServlet = new TodoServlet();
             ServletRegistration.Dynamic todoRegistration = context.addServlet("TodoServlet", todoServlet);
+            todoRegistration.setAsyncSupported(true);
+            todoRegistration.setInitParameter("deadlineMillis",
+                String.valueOf(getEnvInt("TODO_API_DEADLINE_MS", 10000)));
+            todoRegistration.setInitParameter("batchDeadlineMillis",
+                String.valueOf(getEnvInt("TODO_BATCH_DEADLINE_MS", 60000)));
+            todoRegistration.setInitParameter("maxBatchBytes",
+                String.valueOf(getEnvInt("TODO_BATCH_MAX_BYTES", 32 * 1024 * 1024)));
+            todoRegistration.setInitParameter("retryAfterSeconds", retryAfter);
+            todoRegistration.setInitParameter("responseCacheBytes",
+                String.valueOf(getEnvInt("RESPONSE_CACHE_MAX_BYTES", 16 * 1024 * 1024)));
+            todoRegistration.setInitParameter("responseCacheTtlSeconds",
+                String.valueOf(getEnvInt("CACHE_TTL_SECONDS", 60)));
             todoRegistration.addMapping("/api/todos/*");
             logger.info("Todo API endpoint registered at /api/todos/*");
 
+            // One LISTEN connection hears every instance's writes: caches and ETags here
+            // follow them, and browsers get them pushed
+            if (Boolean.parseBoolean(getEnv("CHANGE_FEED_ENABLED", "true"))) {
+                changeFeed = new TodoChangeFeed(createChangeFeedDataSource());
+                changeFeed.subscribe(storage::onChange);
+                context.setAttribute("todoChangeFeed", changeFeed);
+                TodoEventServlet eventServlet = new TodoEventServlet();
+                ServletRegistration.Dynamic eventRegistration = context.addServlet("TodoEventServlet", eventServlet);
+                eventRegistration.setAsyncSupported(true);
+                eventRegistration.setInitParameter("maxConnections",
+                    String.valueOf(getEnvInt("SSE_MAX_CONNECTIONS", 1000)));
+                eventRegistration.setInitParameter("heartbeatSeconds",
+                    String.valueOf(getEnvInt("SSE_HEARTBEAT_SECONDS", 20)));
+                eventRegistration.addMapping("/api/todos/events");
+                logger.info("Todo event stream registered at /api/todos/events");
+            }
+
+            // Register bulk import/export servlet only where explicitly enabled
+            if (Boolean.parseBoolean(getEnv("ADMIN_API_ENABLED", "false"))) {
+                TodoAdminServlet adminServlet = new TodoAdminServlet();
+                ServletRegistration.Dynamic adminRegistration = context.addServlet("TodoAdminServlet", adminServlet);
+                adminRegistration.addMapping("/api/admin/todos/*");
+                logger.info("Todo admin endpoint registered at /api/admin/todos/*");
+            }
+
             // Register health check servlet
             HealthCheckServlet healthCheckServlet = new HealthCheckServlet();
             ServletRegistration.Dynamic registration = context.addServlet("healthCheck", healthCheckServlet);
-            registration.addMapping("/health");
-            logger.info("Health check endpoint registered at /health");
-        } catch (SQLException e) {
+            registration.addMapping("/health", "/health/*");
+            logger.info("Health check endpoints registered at /health, /health/live and /health/ready");
+
+            // Register Prometheus metrics servlet
+            MetricsServlet metricsServlet = new MetricsServlet();
+            ServletRegistration.Dynamic metricsRegistration = context.addServlet("metrics", metricsServlet);
+            metricsRegistration.addMapping("/metrics");
+            logger.info("Metrics endpoint registered at /metrics");
+        } catch (PoolInitializationException e) {
             logger.error("Failed to initialize database connection", e);
             throw new RuntimeException("Failed to initialize database connection", e);
         } catch (ClassNotFoundException e) {
@@ -71,17 +154,154 @@ public void contextInitialized(ServletContextEvent sce) {
     @Override
     public void contextDestroyed(ServletContextEvent sce) {
         logger.info("Destroying Todo application context");
+        if (healthProber != null) {
+            healthProber.close();
+        }
+        if (requestExecutor != null) {
+            requestExecutor.shutdown();
+        }
+        if (changeLogPruner != null) {
+            changeLogPruner.shutdownNow();
+        }
+        if (changeFeed != null) {
+            changeFeed.close();
+        }
         if (storage != null) {
             storage.close();
         }
-        if (connection != null) {
+        logger.info("Todo application context destroyed");
+    }
+
+    /**
+     * Builds the HikariCP pool from environment variables.
+     * Pool sizing, connection timeout, leak detection and the PgJDBC
+     * server-side prepared statement cache are all tunable per deployment.
+     *
+     * @return the configured connection pool
+     */
+    private HikariDataSource createDataSource() {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName("todo-pool");
+        config.setDriverClassName("org.postgresql.Driver");
+        config.setJdbcUrl(jdbcUrl());
+        config.setUsername(getEnv("DB_USER", "todo"));
+        config.setPassword(getEnv("DB_PASSWORD", "todo"));
+
+        int poolSize = getEnvInt("DB_POOL_SIZE", 10);
+        config.setMaximumPoolSize(poolSize);
+        config.setMinimumIdle(getEnvInt("DB_POOL_MIN_IDLE", poolSize));
+        config.setConnectionTimeout(getEnvInt("DB_POOL_TIMEOUT", 30000));
+        config.setLeakDetectionThreshold(getEnvInt("DB_POOL_LEAK_DETECTION_THRESHOLD", 0));
+        config.setRegisterMbeans(true);
+
+        // PgJDBC caches server-side prepared statements per connection
+        config.addDataSourceProperty("prepareThreshold", getEnvInt("DB_PREPARE_THRESHOLD", 5));
+        config.addDataSourceProperty("preparedStatementCacheQueries",
+            getEnvInt("DB_STATEMENT_CACHE_SIZE", 256));
+        config.addDataSourceProperty("preparedStatementCacheSizeMiB",
+            getEnvInt("DB_STATEMENT_CACHE_SIZE_MIB", 5));
+
+        logger.info("Connection pool configured: maximumPoolSize={}, minimumIdle={}, connectionTimeout={}ms",
+            config.getMaximumPoolSize(), config.getMinimumIdle(), config.getConnectionTimeout());
+        return new HikariDataSource(config);
+    }
+
+    /**
+     * Builds the unpooled data source the change feed holds its LISTEN
+     * connection from, so it does not take a connection out of the pool.
+     * TCP keepalives and a socket timeout make the feed's heartbeat fail on
+     * a connection the network dropped without closing it.
+     *
+     * @return the change feed data source
+     */
+    private PGSimpleDataSource createChangeFeedDataSource() {
+        PGSimpleDataSource dataSource = new PGSimpleDataSource();
+        dataSource.setUrl(jdbcUrl());
+        dataSource.setUser(getEnv("DB_USER", "todo"));
+        dataSource.setPassword(getEnv("DB_PASSWORD", "todo"));
+        dataSource.setApplicationName("todo-change-feed");
+        dataSource.setTcpKeepAlive(true);
+        dataSource.setSocketTimeout(30);
+        return dataSource;
+    }
+
+    private static String jdbcUrl() {
+        return String.format("jdbc:postgresql://%s:%s/%s",
+            getEnv("DB_HOST", "postgres"), getEnv("DB_PORT", "5432"), getEnv("DB_NAME", "todo"));
+    }
+
+    /**
+     * Schedules hourly pruning of change log entries older than the retention
+     * period. Every instance prunes; running it twice does no harm.
+     *
+     * @param retention how long change log entries are kept
+     * @return the pruning scheduler
+     */
+    private ScheduledExecutorService createChangeLogPruner(Duration retention) {
+        ScheduledExecutorService pruner = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "todo-change-log-pruner");
+            thread.setDaemon(true);
+            return thread;
+        });
+        pruner.scheduleWithFixedDelay(() -> {
             try {
-                connection.close();
-                logger.info("Database connection closed");
-            } catch (SQLException e) {
-                logger.error("Failed to close database connection", e);
+                storage.pruneChanges(retention);
+            } catch (RuntimeException e) {
+                // Already logged by TodoStorage; try again next time
             }
+        }, 1, 60, TimeUnit.MINUTES);
+        logger.info("Change log retention configured: {} hours", retention.toHours());
+        return pruner;
+    }
+
+    /**
+     * Creates the bounded executor requests are dispatched to. With virtual
+     * threads every request gets its own thread, up to a cap on requests in
+     * flight. Otherwise a fixed number of platform workers drain a fixed-size
+     * queue. Anything beyond either bound is rejected so the servlets can
+     * answer 503 instead of piling up behind a slow database.
+     *
+     * @param virtualThreads run each request on its own virtual thread
+     * @return the request executor
+     */
+    private ExecutorService createRequestExecutor(boolean virtualThreads) {
+        if (virtualThreads) {
+            int maxInFlight = getEnvInt("REQUEST_MAX_IN_FLIGHT", 20000);
+            ThreadFactory factory = Thread.ofVirtual().name("todo-request-", 1).factory();
+            logger.info("Request executor configured: virtual thread per request, maxInFlight={}", maxInFlight);
+            return new InFlightLimitedExecutor(Executors.newThreadPerTaskExecutor(factory), maxInFlight);
+        }
+
+        int threads = getEnvInt("REQUEST_EXECUTOR_THREADS", 100);
+        int queueCapacity = getEnvInt("REQUEST_QUEUE_CAPACITY", 500);
+        AtomicInteger threadCount = new AtomicInteger();
+        ThreadFactory threadFactory = task -> {
+            Thread thread = new Thread(task, "todo-request-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(queueCapacity), threadFactory, new ThreadPoolExecutor.AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        logger.info("Request executor configured: threads={}, queueCapacity={}", threads, queueCapacity);
+        return executor;
+    }
+
+    private static String getEnv(String name, String defaultValue) {
+        String value = System.getenv(name);
+        return value == null || value.isEmpty() ? defaultValue : value;
+    }
+
+    private static int getEnvInt(String name, int defaultValue) {
+        String value = System.getenv(name);
+        if (value == null || value.isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            logger.warn("Invalid value for {}: {}, using default {}", name, value, defaultValue);
+            return defaultValue;
         }
-        logger.info("Todo application context destroyed");
     }
 } 
\ No newline at end of file
@@ -0,0 +1,76 @@
+package com.example.todo.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A set of create, update and delete operations applied in one transaction.
+ */
+public class TodoBatch {
+    private List<Todo> create = new ArrayList<>();
+    private List<Todo> update = new ArrayList<>();
+    private List<Integer> delete = new ArrayList<>();
+
+    /**
+     * Gets the Todos to create.
+     *
+     * @return Todos without IDs to insert
+     */
+    public List<Todo> getCreate() {
+        return create;
+    }
+
+    /**
+     * Sets the Todos to create.
+     *
+     * @param create Todos without IDs to insert
+     */
+    public void setCreate(List<Todo> create) {
+        this.create = create == null ? new ArrayList<>() : create;
+    }
+
+    /**
+     * Gets the Todos to update.
+     *
+     * @return Todos whose stored fields are replaced, matched by ID
+     */
+    public List<Todo> getUpdate() {
+        return update;
+    }
+
+    /**
+     * Sets the Todos to update.
+     *
+     * @param update Todos whose stored fields are replaced, matched by ID
+     */
+    public void setUpdate(List<Todo> update) {
+        this.update = update == null ? new ArrayList<>() : update;
+    }
+
+    /**
+     * Gets the IDs to delete.
+     *
+     * @return IDs of Todos to delete
+     */
+    public List<Integer> getDelete() {
+        return delete;
+    }
+
+    /**
+     * Sets the IDs to delete.
+     *
+     * @param delete IDs of Todos to delete
+     */
+    public void setDelete(List<Integer> delete) {
+        this.delete = delete == null ? new ArrayList<>() : delete;
+    }
+
+    /**
+     * Gets the total number of operations in the batch.
+     *
+     * @return creates plus updates plus deletes
+     */
+    public int size() {
+        return create.size() + update.size() + delete.size();
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.todo.model;
+
+import java.util.List;
+
+/**
+ * Outcome of a committed TodoBatch.
+ */
+public class TodoBatchResult {
+    private final List<Integer> created;
+    private final int updated;
+    private final int deleted;
+
+    /**
+     * Creates a batch result.
+     *
+     * @param created generated IDs, in the order the creates were submitted
+     * @param updated number of rows updated
+     * @param deleted number of rows deleted
+     */
+    public TodoBatchResult(List<Integer> created, int updated, int deleted) {
+        this.created = created;
+        this.updated = updated;
+        this.deleted = deleted;
+    }
+
+    /**
+     * Gets the generated IDs.
+     *
+     * @return generated IDs, in the order the creates were submitted
+     */
+    public List<Integer> getCreated() {
+        return created;
+    }
+
+    /**
+     * Gets the number of rows updated.
+     *
+     * @return rows updated; IDs that did not exist are not counted
+     */
+    public int getUpdated() {
+        return updated;
+    }
+
+    /**
+     * Gets the number of rows deleted.
+     *
+     * @return rows deleted; IDs that did not exist are not counted
+     */
+    public int getDeleted() {
+        return deleted;
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.todo.model;
+
+import java.util.List;
+
+/**
+ * Todo items changed since a sync token, as read from the change log.
+ */
+public class TodoChanges {
+    private final List<Todo> updated;
+    private final List<Integer> deleted;
+    private final String nextToken;
+    private final boolean hasMore;
+    private final boolean reset;
+
+    /**
+     * Creates a change set.
+     *
+     * @param updated current state of todos created or updated since the token
+     * @param deleted IDs of todos deleted since the token
+     * @param nextToken token to pass on the next sync
+     * @param hasMore whether more changes are already waiting past nextToken
+     * @param reset whether the client must reload everything before syncing from nextToken
+     */
+    public TodoChanges(List<Todo> updated, List<Integer> deleted, String nextToken,
+                       boolean hasMore, boolean reset) {
+        this.updated = updated;
+        this.deleted = deleted;
+        this.nextToken = nextToken;
+        this.hasMore = hasMore;
+        this.reset = reset;
+    }
+
+    /**
+     * Gets the todos created or updated since the token.
+     *
+     * @return their current state, in change order
+     */
+    public List<Todo> getUpdated() {
+        return updated;
+    }
+
+    /**
+     * Gets the todos deleted since the token.
+     *
+     * @return deleted IDs
+     */
+    public List<Integer> getDeleted() {
+        return deleted;
+    }
+
+    /**
+     * Gets the token to sync from next time.
+     *
+     * @return the next sync token
+     */
+    public String getNextToken() {
+        return nextToken;
+    }
+
+    /**
+     * Whether more changes are waiting; the client should sync again at once.
+     *
+     * @return true if this change set was cut off at the limit
+     */
+    public boolean isHasMore() {
+        return hasMore;
+    }
+
+    /**
+     * Whether the changes since the token are no longer known, for example
+     * after an import or once the log has been pruned. The client should
+     * reload the full list and then sync from nextToken.
+     *
+     * @return true if the client must reload everything
+     */
+    public boolean isReset() {
+        return reset;
+    }
+}
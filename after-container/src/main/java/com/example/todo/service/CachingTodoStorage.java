@@ -0,0 +1,260 @@
+package com.example.todo.service;
+
+import com.example.todo.model.Todo;
+import com.example.todo.model.TodoBatch;
+import com.example.todo.model.TodoBatchResult;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.sql.DataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * TodoStorage with a bounded in-process cache in front of the database.
+ * Single todos are cached by ID and list results by query, both with
+ * W-TinyLFU size eviction and a TTL. Reads are read-through; writes go to
+ * the database first, then cache a copy of a created todo, drop updated and
+ * deleted ones, and drop cached lists. An update is not cached from the
+ * request, which does not carry the stored creation time.
+ * Writes from other instances evict the same way once TodoChangeFeed
+ * delivers them; the TTL only bounds staleness while the feed is down.
+ */
+public class CachingTodoStorage extends TodoStorage {
+    private static final Logger logger = LoggerFactory.getLogger(CachingTodoStorage.class);
+    private static final String ALL_TODOS_KEY = "all_todos";
+
+    private final Cache<Integer, Todo> todoCache;
+    private final Cache<Object, TodoPage> listCache;
+    // Bumped before and after every write's invalidation, so a load that raced
+    // a write is not cached and a version read mid-invalidation never matches again
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * Initializes the caching storage.
+     *
+     * @param dataSource The data source to borrow connections from
+     * @param maxTodos maximum number of single todos to cache
+     * @param maxListItems maximum number of todos held across all cached lists
+     * @param ttl how long an entry may be served after it was written
+     */
+    public CachingTodoStorage(DataSource dataSource, long maxTodos, long maxListItems, Duration ttl) {
+        super(dataSource);
+        this.todoCache = Caffeine.newBuilder()
+            .maximumSize(maxTodos)
+            .expireAfterWrite(ttl)
+            .recordStats()
+            .build();
+        this.listCache = Caffeine.newBuilder()
+            .maximumWeight(maxListItems)
+            .weigher((Object key, TodoPage page) -> page.items.size() + 1)
+            .expireAfterWrite(ttl)
+            .recordStats()
+            .build();
+        logger.info("Todo cache enabled: maxTodos={}, maxListItems={}, ttl={}s",
+            maxTodos, maxListItems, ttl.getSeconds());
+    }
+
+    @Override
+    public List<Todo> getAllTodos() {
+        TodoPage page = listCache.getIfPresent(ALL_TODOS_KEY);
+        if (page == null) {
+            long loadGeneration = generation.get();
+            page = new TodoPage(super.getAllTodos(), null);
+            cacheList(ALL_TODOS_KEY, page, loadGeneration);
+        }
+        return new ArrayList<>(page.items);
+    }
+
+    @Override
+    public TodoCursor streamTodos(TodoQuery query, TodoSink sink) throws IOException {
+        TodoPage page = listCache.getIfPresent(query);
+        if (page != null) {
+            for (Todo todo : page.items) {
+                sink.accept(todo);
+            }
+            return page.next;
+        }
+
+        long loadGeneration = generation.get();
+        List<Todo> items = new ArrayList<>();
+        TodoCursor next = super.streamTodos(query, todo -> {
+            items.add(todo);
+            sink.accept(todo);
+        });
+        cacheList(query, new TodoPage(items, next), loadGeneration);
+        return next;
+    }
+
+    @Override
+    public Todo getTodo(int id) {
+        Todo todo = todoCache.getIfPresent(id);
+        if (todo == null) {
+            // Loaded outside Caffeine's compute so the JDBC call never runs under
+            // a map bin lock, where it would pin a virtual thread to its carrier
+            long loadGeneration = generation.get();
+            todo = super.getTodo(id);
+            if (todo != null) {
+                cacheTodo(todo, loadGeneration);
+            }
+        }
+        return todo;
+    }
+
+    @Override
+    public Todo createTodo(Todo todo) {
+        Todo created = super.createTodo(todo);
+        invalidateLists();
+        // A copy, so later changes to the caller's object do not reach the cache
+        todoCache.put(created.getId(), copy(created));
+        return created;
+    }
+
+    @Override
+    public Todo updateTodo(Todo todo) {
+        Todo updated = super.updateTodo(todo);
+        invalidateLists();
+        todoCache.invalidate(todo.getId());
+        return updated;
+    }
+
+    @Override
+    public boolean deleteTodo(int id) {
+        boolean deleted = super.deleteTodo(id);
+        invalidateLists();
+        todoCache.invalidate(id);
+        return deleted;
+    }
+
+    @Override
+    public TodoBatchResult executeBatch(TodoBatch batch) {
+        TodoBatchResult result = super.executeBatch(batch);
+        invalidateLists();
+        for (Todo todo : batch.getUpdate()) {
+            todoCache.invalidate(todo.getId());
+        }
+        todoCache.invalidateAll(batch.getDelete());
+        return result;
+    }
+
+    @Override
+    public long importTodos(TodoSource source, boolean preserveIds) throws IOException {
+        long count = super.importTodos(source, preserveIds);
+        invalidateLists();
+        return count;
+    }
+
+    @Override
+    public long importCsv(InputStream in) throws IOException {
+        long count = super.importCsv(in);
+        invalidateLists();
+        return count;
+    }
+
+    /**
+     * Drops what another instance changed: every cached list, and the
+     * changed todos, or all of them on a reset. As with local writes, the
+     * generation moves first, so a load that read the old rows before the
+     * change arrived is not cached afterwards.
+     */
+    @Override
+    protected void evict(TodoChange change) {
+        invalidateLists();
+        if (change.getType() == TodoChange.Type.RESET) {
+            todoCache.invalidateAll();
+        } else {
+            todoCache.invalidateAll(change.getIds());
+        }
+        logger.debug("Evicted {} todos {} elsewhere", change.getIds().size(), change.getType().getLabel());
+    }
+
+    /**
+     * Gets the version of the todo lists served by this instance. It changes
+     * on every write made through it, and again once cached lists have been
+     * dropped, so a list read after this call is at least as new as the
+     * returned version, even when it comes from the cache.
+     *
+     * @return the current data version
+     */
+    @Override
+    public long getDataVersion() {
+        return generation.get();
+    }
+
+    /**
+     * Gets hit, miss and eviction counters for the single-todo and list caches.
+     *
+     * @return statistics keyed by cache name
+     */
+    public Map<String, TodoCacheStats> getCacheStats() {
+        Map<String, TodoCacheStats> stats = new LinkedHashMap<>();
+        stats.put("todos", toStats(todoCache));
+        stats.put("lists", toStats(listCache));
+        return stats;
+    }
+
+    private void cacheTodo(Todo todo, long loadGeneration) {
+        if (generation.get() != loadGeneration) {
+            return;
+        }
+        todoCache.put(todo.getId(), todo);
+        if (generation.get() != loadGeneration) {
+            todoCache.invalidate(todo.getId());
+        }
+    }
+
+    private void cacheList(Object key, TodoPage page, long loadGeneration) {
+        if (generation.get() != loadGeneration) {
+            return;
+        }
+        listCache.put(key, page);
+        if (generation.get() != loadGeneration) {
+            listCache.invalidate(key);
+        }
+    }
+
+    private void invalidateLists() {
+        generation.incrementAndGet();
+        listCache.invalidateAll();
+        generation.incrementAndGet();
+    }
+
+    private static Todo copy(Todo todo) {
+        Todo copy = new Todo();
+        copy.setId(todo.getId());
+        copy.setTitle(todo.getTitle());
+        copy.setDescription(todo.getDescription());
+        copy.setCompleted(todo.isCompleted());
+        copy.setCreatedAt(todo.getCreatedAt());
+        copy.setCompletedAt(todo.getCompletedAt());
+        return copy;
+    }
+
+    private static TodoCacheStats toStats(Cache<?, ?> cache) {
+        CacheStats stats = cache.stats();
+        return new TodoCacheStats(cache.estimatedSize(), stats.hitCount(),
+            stats.missCount(), stats.evictionCount());
+    }
+
+    /**
+     * One cached list result and the cursor that followed it.
+     */
+    private static final class TodoPage {
+        private final List<Todo> items;
+        private final TodoCursor next;
+
+        private TodoPage(List<Todo> items, TodoCursor next) {
+            this.items = Collections.unmodifiableList(items);
+            this.next = next;
+        }
+    }
+}
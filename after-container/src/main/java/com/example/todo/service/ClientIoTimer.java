@@ -0,0 +1,91 @@
+package com.example.todo.service;
+
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Adds up the time a streaming storage operation spends handing rows to or
+ * taking rows from the client, so it can be left out of the operation's
+ * recorded latency. Otherwise a slow reader or uploader would show up as a
+ * slow query. One timer belongs to one operation on one thread.
+ */
+final class ClientIoTimer {
+    private long nanos;
+
+    /**
+     * Gets the time spent in the wrapped sinks, sources and streams so far.
+     *
+     * @return elapsed time in nanoseconds
+     */
+    long nanos() {
+        return nanos;
+    }
+
+    TodoSink wrap(TodoSink sink) {
+        return todo -> {
+            long start = System.nanoTime();
+            try {
+                sink.accept(todo);
+            } finally {
+                nanos += System.nanoTime() - start;
+            }
+        };
+    }
+
+    TodoSource wrap(TodoSource source) {
+        return () -> {
+            long start = System.nanoTime();
+            try {
+                return source.next();
+            } finally {
+                nanos += System.nanoTime() - start;
+            }
+        };
+    }
+
+    OutputStream wrap(OutputStream out) {
+        return new FilterOutputStream(out) {
+            @Override
+            public void write(byte[] bytes, int offset, int length) throws IOException {
+                long start = System.nanoTime();
+                try {
+                    out.write(bytes, offset, length);
+                } finally {
+                    nanos += System.nanoTime() - start;
+                }
+            }
+
+            @Override
+            public void write(int b) throws IOException {
+                write(new byte[] {(byte) b}, 0, 1);
+            }
+        };
+    }
+
+    InputStream wrap(InputStream in) {
+        return new FilterInputStream(in) {
+            @Override
+            public int read(byte[] bytes, int offset, int length) throws IOException {
+                long start = System.nanoTime();
+                try {
+                    return in.read(bytes, offset, length);
+                } finally {
+                    nanos += System.nanoTime() - start;
+                }
+            }
+
+            @Override
+            public int read() throws IOException {
+                long start = System.nanoTime();
+                try {
+                    return in.read();
+                } finally {
+                    nanos += System.nanoTime() - start;
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.todo.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Probes the database in the background and caches the result, so health
+ * and readiness requests read a snapshot instead of each borrowing a
+ * connection. Readiness also requires a pool that is not saturated, a probe
+ * within the latency threshold, and a snapshot that is not stale.
+ */
+public class HealthProber implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(HealthProber.class);
+
+    private final TodoStorage storage;
+    private final long intervalMillis;
+    private final long maxLatencyMillis;
+    private final ScheduledExecutorService scheduler;
+    private volatile HealthStatus status;
+
+    /**
+     * Starts probing immediately and then every interval.
+     *
+     * @param storage the storage whose database and pool are probed
+     * @param intervalMillis time between the end of one probe and the start of the next
+     * @param maxLatencyMillis slowest probe that still counts as ready
+     */
+    public HealthProber(TodoStorage storage, long intervalMillis, long maxLatencyMillis) {
+        this.storage = storage;
+        this.intervalMillis = intervalMillis;
+        this.maxLatencyMillis = maxLatencyMillis;
+        this.status = new HealthStatus(false, 0, 0, null, null,
+            Collections.singletonList("Database not checked yet"));
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "todo-health-prober");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.scheduler.scheduleWithFixedDelay(this::probe, 0, intervalMillis, TimeUnit.MILLISECONDS);
+        logger.info("Health prober started: interval={}ms, maxLatency={}ms", intervalMillis, maxLatencyMillis);
+    }
+
+    /**
+     * Gets the latest probe result. A result older than two intervals plus the
+     * latency threshold means the prober itself is stuck, typically waiting
+     * for a connection, and is reported as not ready.
+     *
+     * @return the cached status
+     */
+    public HealthStatus getStatus() {
+        HealthStatus current = status;
+        long age = System.currentTimeMillis() - current.getCheckedAt();
+        if (current.isReady() && age > 2 * intervalMillis + maxLatencyMillis) {
+            return new HealthStatus(current.isDatabaseUp(), current.getDatabaseLatencyMillis(),
+                current.getCheckedAt(), current.getPool(), current.getCache(),
+                Collections.singletonList("Health status is stale (" + age + "ms old)"));
+        }
+        return current;
+    }
+
+    private void probe() {
+        try {
+            long start = System.nanoTime();
+            boolean databaseUp = storage.checkHealth();
+            long latencyMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            PoolStats pool = storage.getPoolStats();
+            Map<String, TodoCacheStats> cache = storage instanceof CachingTodoStorage
+                ? ((CachingTodoStorage) storage).getCacheStats()
+                : null;
+
+            List<String> reasons = new ArrayList<>();
+            if (!databaseUp) {
+                reasons.add("Database check failed");
+            } else if (latencyMillis > maxLatencyMillis) {
+                reasons.add("Database check took " + latencyMillis + "ms, over " + maxLatencyMillis + "ms");
+            }
+            if (pool != null && pool.isSaturated()) {
+                reasons.add("Connection pool saturated, " + pool.getThreadsAwaitingConnection() + " threads waiting");
+            }
+
+            HealthStatus previous = status;
+            status = new HealthStatus(databaseUp, latencyMillis, System.currentTimeMillis(), pool, cache, reasons);
+            if (previous.isReady() != reasons.isEmpty()) {
+                logger.info("Readiness changed to {} {}", reasons.isEmpty() ? "READY" : "NOT READY", reasons);
+            }
+        } catch (RuntimeException e) {
+            // Keep the schedule alive; a failed probe must not stop later ones
+            logger.error("Health probe failed", e);
+            status = new HealthStatus(false, 0, System.currentTimeMillis(), null, null,
+                Collections.singletonList("Health probe failed: " + e.getMessage()));
+        }
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+}
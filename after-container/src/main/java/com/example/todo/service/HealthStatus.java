@@ -0,0 +1,70 @@
+package com.example.todo.service;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Result of one background health probe, as cached by HealthProber.
+ */
+public class HealthStatus {
+    private final boolean databaseUp;
+    private final long databaseLatencyMillis;
+    private final long checkedAt;
+    private final PoolStats pool;
+    private final Map<String, TodoCacheStats> cache;
+    private final List<String> notReadyReasons;
+
+    /**
+     * Creates a probe result.
+     *
+     * @param databaseUp whether the database answered the probe query
+     * @param databaseLatencyMillis time taken to borrow a connection and run the probe query
+     * @param checkedAt when the probe finished, in epoch milliseconds
+     * @param pool pool statistics at probe time, or null if unavailable
+     * @param cache cache statistics at probe time, or null if caching is disabled
+     * @param notReadyReasons why the instance should not take traffic, empty if it should
+     */
+    public HealthStatus(boolean databaseUp, long databaseLatencyMillis, long checkedAt, PoolStats pool,
+                        Map<String, TodoCacheStats> cache, List<String> notReadyReasons) {
+        this.databaseUp = databaseUp;
+        this.databaseLatencyMillis = databaseLatencyMillis;
+        this.checkedAt = checkedAt;
+        this.pool = pool;
+        this.cache = cache;
+        this.notReadyReasons = Collections.unmodifiableList(notReadyReasons);
+    }
+
+    public boolean isDatabaseUp() {
+        return databaseUp;
+    }
+
+    public long getDatabaseLatencyMillis() {
+        return databaseLatencyMillis;
+    }
+
+    public long getCheckedAt() {
+        return checkedAt;
+    }
+
+    public PoolStats getPool() {
+        return pool;
+    }
+
+    public Map<String, TodoCacheStats> getCache() {
+        return cache;
+    }
+
+    public List<String> getNotReadyReasons() {
+        return notReadyReasons;
+    }
+
+    /**
+     * Checks whether the probe found the instance fit to take traffic.
+     *
+     * @return true if the database is up and within the pool and latency thresholds
+     */
+    public boolean isReady() {
+        return notReadyReasons.isEmpty();
+    }
+}
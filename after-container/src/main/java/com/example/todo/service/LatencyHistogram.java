@@ -0,0 +1,78 @@
+package com.example.todo.service;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed-bucket latency histogram in the Prometheus layout.
+ * Recording is one bounded scan over the bucket bounds plus two LongAdder
+ * increments, so it allocates nothing and scales across request threads.
+ */
+public final class LatencyHistogram {
+    /** Upper bucket bounds in seconds, as exported in the le label. */
+    static final String[] BOUNDS = {
+        "0.0005", "0.001", "0.0025", "0.005", "0.01", "0.025", "0.05",
+        "0.1", "0.25", "0.5", "1", "2.5", "5", "10"
+    };
+    private static final long[] BOUNDS_NANOS = new long[BOUNDS.length];
+
+    static {
+        for (int i = 0; i < BOUNDS.length; i++) {
+            BOUNDS_NANOS[i] = (long) (Double.parseDouble(BOUNDS[i]) * 1_000_000_000L);
+        }
+    }
+
+    // One extra bucket for +Inf
+    private final LongAdder[] buckets = new LongAdder[BOUNDS.length + 1];
+    private final LongAdder sumNanos = new LongAdder();
+
+    public LatencyHistogram() {
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Records one observation.
+     *
+     * @param nanos the observed duration in nanoseconds
+     */
+    public void record(long nanos) {
+        int bucket = 0;
+        while (bucket < BOUNDS_NANOS.length && nanos > BOUNDS_NANOS[bucket]) {
+            bucket++;
+        }
+        buckets[bucket].increment();
+        sumNanos.add(nanos);
+    }
+
+    /**
+     * Appends the histogram in Prometheus text format: cumulative buckets,
+     * sum and count. The HELP and TYPE lines are left to the caller, since
+     * several labelled histograms share them.
+     *
+     * @param out receives the exposition lines
+     * @param name metric name without the _bucket, _sum or _count suffix
+     * @param labels label pairs such as method="GET", or empty
+     */
+    public void appendTo(StringBuilder out, String name, String labels) {
+        String prefix = labels.isEmpty() ? "" : labels + ",";
+        long cumulative = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            cumulative += buckets[i].sum();
+            out.append(name).append("_bucket{").append(prefix).append("le=\"")
+                .append(i < BOUNDS.length ? BOUNDS[i] : "+Inf").append("\"} ").append(cumulative).append('\n');
+        }
+        out.append(name).append("_sum");
+        appendLabels(out, labels);
+        out.append(' ').append(sumNanos.sum() / 1e9).append('\n');
+        out.append(name).append("_count");
+        appendLabels(out, labels);
+        out.append(' ').append(cumulative).append('\n');
+    }
+
+    private static void appendLabels(StringBuilder out, String labels) {
+        if (!labels.isEmpty()) {
+            out.append('{').append(labels).append('}');
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.todo.service;
+
+/**
+ * Point-in-time snapshot of the JDBC connection pool used by TodoStorage.
+ */
+public class PoolStats {
+    private final int activeConnections;
+    private final int idleConnections;
+    private final int totalConnections;
+    private final int threadsAwaitingConnection;
+    private final int maximumPoolSize;
+
+    /**
+     * Creates a pool snapshot.
+     *
+     * @param activeConnections connections currently checked out
+     * @param idleConnections connections idle in the pool
+     * @param totalConnections active plus idle connections
+     * @param threadsAwaitingConnection threads blocked waiting for a connection
+     * @param maximumPoolSize configured upper bound of the pool
+     */
+    public PoolStats(int activeConnections, int idleConnections, int totalConnections,
+                     int threadsAwaitingConnection, int maximumPoolSize) {
+        this.activeConnections = activeConnections;
+        this.idleConnections = idleConnections;
+        this.totalConnections = totalConnections;
+        this.threadsAwaitingConnection = threadsAwaitingConnection;
+        this.maximumPoolSize = maximumPoolSize;
+    }
+
+    public int getActiveConnections() {
+        return activeConnections;
+    }
+
+    public int getIdleConnections() {
+        return idleConnections;
+    }
+
+    public int getTotalConnections() {
+        return totalConnections;
+    }
+
+    public int getThreadsAwaitingConnection() {
+        return threadsAwaitingConnection;
+    }
+
+    public int getMaximumPoolSize() {
+        return maximumPoolSize;
+    }
+
+    /**
+     * Gets the fraction of the pool that is checked out.
+     *
+     * @return active connections divided by the maximum pool size, 0 if unknown
+     */
+    public double getUtilization() {
+        return maximumPoolSize > 0 ? (double) activeConnections / maximumPoolSize : 0.0;
+    }
+
+    /**
+     * Checks whether callers are queueing for connections.
+     *
+     * @return true if every connection is in use and at least one thread is waiting
+     */
+    public boolean isSaturated() {
+        return threadsAwaitingConnection > 0 && activeConnections >= maximumPoolSize;
+    }
+}
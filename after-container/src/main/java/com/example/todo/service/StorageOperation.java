@@ -0,0 +1,31 @@
+package com.example.todo.service;
+
+import java.util.Locale;
+
+/**
+ * TodoStorage operations timed by TodoMetrics.
+ */
+public enum StorageOperation {
+    GET_ALL,
+    GET,
+    STREAM,
+    CHANGES,
+    CREATE,
+    UPDATE,
+    DELETE,
+    BATCH,
+    EXPORT,
+    IMPORT,
+    HEALTH_CHECK;
+
+    private final String label = name().toLowerCase(Locale.ROOT);
+
+    /**
+     * Gets the value used for the operation label.
+     *
+     * @return the lower-case operation name
+     */
+    public String getLabel() {
+        return label;
+    }
+}
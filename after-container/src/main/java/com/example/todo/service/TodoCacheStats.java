@@ -0,0 +1,52 @@
+package com.example.todo.service;
+
+/**
+ * Point-in-time counters for one of the caches in front of TodoStorage.
+ */
+public class TodoCacheStats {
+    private final long size;
+    private final long hitCount;
+    private final long missCount;
+    private final long evictionCount;
+
+    /**
+     * Creates a cache snapshot.
+     *
+     * @param size approximate number of cached entries
+     * @param hitCount lookups served from the cache
+     * @param missCount lookups that fell through to the database
+     * @param evictionCount entries removed by size or TTL eviction
+     */
+    public TodoCacheStats(long size, long hitCount, long missCount, long evictionCount) {
+        this.size = size;
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.evictionCount = evictionCount;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    public long getMissCount() {
+        return missCount;
+    }
+
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * Gets the fraction of lookups served from the cache.
+     *
+     * @return hits divided by total lookups, 1.0 if there were no lookups
+     */
+    public double getHitRatio() {
+        long requests = hitCount + missCount;
+        return requests == 0 ? 1.0 : (double) hitCount / requests;
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.todo.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A committed write, as sent between instances over Postgres NOTIFY.
+ * Only IDs travel; whoever needs the todos reads them back. The origin
+ * names the TodoStorage that made the write, so it can skip its own.
+ */
+public class TodoChange {
+    /** Largest payload encode produces; Postgres rejects NOTIFY payloads of 8000 bytes or more. */
+    static final int MAX_PAYLOAD_LENGTH = 7900;
+
+    /**
+     * What happened to the todos.
+     */
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED,
+        /** Anything may have changed, for example after an import or missed notifications. */
+        RESET;
+
+        private final String label = name().toLowerCase(Locale.ROOT);
+
+        /**
+         * Gets the lower-case name used on the wire and as the SSE event name.
+         *
+         * @return the label
+         */
+        public String getLabel() {
+            return label;
+        }
+    }
+
+    private static final TodoChange RESET = new TodoChange(null, Type.RESET, Collections.emptyList());
+
+    private final String origin;
+    private final Type type;
+    private final List<Integer> ids;
+
+    /**
+     * Creates a change.
+     *
+     * @param origin instance ID of the storage that made the write, or null if unknown
+     * @param type what happened
+     * @param ids IDs of the todos it happened to
+     */
+    public TodoChange(String origin, Type type, List<Integer> ids) {
+        this.origin = origin;
+        this.type = type;
+        this.ids = ids;
+    }
+
+    /**
+     * Gets a change from no particular instance telling listeners that
+     * anything may have changed.
+     *
+     * @return the reset change
+     */
+    public static TodoChange reset() {
+        return RESET;
+    }
+
+    public String getOrigin() {
+        return origin;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public List<Integer> getIds() {
+        return ids;
+    }
+
+    /**
+     * Encodes the change as NOTIFY payloads of the form "origin:updated:1,2,3",
+     * split so that none exceeds MAX_PAYLOAD_LENGTH.
+     *
+     * @return one or more payloads
+     */
+    public List<String> encode() {
+        List<String> payloads = new ArrayList<>(1);
+        StringBuilder payload = new StringBuilder(origin == null ? "" : origin)
+            .append(':').append(type.getLabel()).append(':');
+        int header = payload.length();
+        for (Integer id : ids) {
+            String value = id.toString();
+            if (payload.length() + value.length() + 1 > MAX_PAYLOAD_LENGTH) {
+                payloads.add(payload.toString());
+                payload.setLength(header);
+            }
+            if (payload.length() > header) {
+                payload.append(',');
+            }
+            payload.append(value);
+        }
+        payloads.add(payload.toString());
+        return payloads;
+    }
+
+    /**
+     * Decodes a payload produced by {@link #encode()}.
+     *
+     * @param payload the NOTIFY payload
+     * @return the decoded change
+     * @throws IllegalArgumentException if the payload is malformed
+     */
+    public static TodoChange decode(String payload) {
+        int originEnd = payload.indexOf(':');
+        int separator = payload.indexOf(':', originEnd + 1);
+        if (originEnd < 0 || separator < 0) {
+            throw new IllegalArgumentException("Invalid change: " + payload);
+        }
+        String origin = originEnd == 0 ? null : payload.substring(0, originEnd);
+        Type type = Type.valueOf(payload.substring(originEnd + 1, separator).toUpperCase(Locale.ROOT));
+        List<Integer> ids = new ArrayList<>();
+        if (separator + 1 < payload.length()) {
+            for (String id : payload.substring(separator + 1).split(",")) {
+                ids.add(Integer.valueOf(id));
+            }
+        }
+        return new TodoChange(origin, type, ids);
+    }
+}
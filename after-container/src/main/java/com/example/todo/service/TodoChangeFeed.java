@@ -0,0 +1,157 @@
+package com.example.todo.service;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import javax.sql.DataSource;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Listens for the NOTIFY messages TodoStorage sends on every committed
+ * write, from this instance and every other one sharing the database, and
+ * hands each change to the subscribers. One thread holds one dedicated
+ * connection and checks it with a query every HEARTBEAT_MILLIS, since
+ * waiting for notifications alone never notices a connection the network
+ * silently dropped. It reconnects with backoff when the connection fails and,
+ * once listening again after any failed attempt, including a failed first
+ * one, sends a reset, since notifications sent meanwhile are lost.
+ *
+ * <p>Subscribers run on the listening thread and must not block.
+ */
+public class TodoChangeFeed implements AutoCloseable {
+    /** NOTIFY channel TodoStorage sends changes on. */
+    public static final String CHANNEL = "todo_changes";
+
+    private static final Logger logger = LoggerFactory.getLogger(TodoChangeFeed.class);
+    // How long one wait for notifications lasts, which bounds how long close takes
+    private static final int POLL_MILLIS = 1000;
+    private static final long MAX_BACKOFF_MILLIS = 30_000;
+    // How often the connection is checked while no notifications arrive
+    private static final long HEARTBEAT_MILLIS = 10_000;
+
+    private final DataSource dataSource;
+    private final List<Consumer<TodoChange>> subscribers = new CopyOnWriteArrayList<>();
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    /**
+     * Starts listening in the background.
+     *
+     * @param dataSource source of the listening connection; it is held for
+     *     the lifetime of the feed, so this should not be the request pool.
+     *     It should set a socket timeout, so a heartbeat on a dead
+     *     connection fails instead of hanging
+     */
+    public TodoChangeFeed(DataSource dataSource) {
+        this.dataSource = dataSource;
+        this.thread = new Thread(this::run, "todo-change-feed");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Registers a subscriber for every change from now on.
+     *
+     * @param subscriber called on the listening thread; must not block
+     */
+    public void subscribe(Consumer<TodoChange> subscriber) {
+        subscribers.add(subscriber);
+    }
+
+    /**
+     * Removes a subscriber.
+     *
+     * @param subscriber the subscriber to remove
+     */
+    public void unsubscribe(Consumer<TodoChange> subscriber) {
+        subscribers.remove(subscriber);
+    }
+
+    private void run() {
+        long backoff = POLL_MILLIS;
+        // Whether notifications may have been missed since the last LISTEN
+        boolean missed = false;
+        while (running) {
+            try (Connection connection = dataSource.getConnection();
+                 Statement stmt = connection.createStatement()) {
+                stmt.execute("LISTEN " + CHANNEL);
+                logger.info("Listening for todo changes on channel {}", CHANNEL);
+                if (missed) {
+                    publish(TodoChange.reset());
+                    missed = false;
+                }
+                backoff = POLL_MILLIS;
+
+                PGConnection pg = connection.unwrap(PGConnection.class);
+                long lastHeard = System.nanoTime();
+                while (running) {
+                    PGNotification[] notifications = pg.getNotifications(POLL_MILLIS);
+                    if (notifications != null && notifications.length > 0) {
+                        for (PGNotification notification : notifications) {
+                            publish(notification.getParameter());
+                        }
+                        lastHeard = System.nanoTime();
+                    } else if (System.nanoTime() - lastHeard >= HEARTBEAT_MILLIS * 1_000_000) {
+                        // Round trip to the server; throws if the connection is gone
+                        stmt.execute("SELECT 1");
+                        lastHeard = System.nanoTime();
+                    }
+                }
+            } catch (SQLException e) {
+                missed = true;
+                if (!running) {
+                    break;
+                }
+                logger.warn("Todo change feed disconnected, retrying in {}ms: {}", backoff, e.getMessage());
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException interrupted) {
+                    break;
+                }
+                backoff = Math.min(backoff * 2, MAX_BACKOFF_MILLIS);
+            }
+        }
+        logger.info("Todo change feed stopped");
+    }
+
+    private void publish(String payload) {
+        TodoChange change;
+        try {
+            change = TodoChange.decode(payload);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Ignoring malformed todo change: {}", payload);
+            return;
+        }
+        publish(change);
+    }
+
+    private void publish(TodoChange change) {
+        for (Consumer<TodoChange> subscriber : subscribers) {
+            try {
+                subscriber.accept(change);
+            } catch (RuntimeException e) {
+                logger.error("Todo change subscriber failed", e);
+            }
+        }
+    }
+
+    /**
+     * Stops listening and releases the connection.
+     */
+    @Override
+    public void close() {
+        running = false;
+        thread.interrupt();
+        try {
+            thread.join(2L * POLL_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.todo.service;
+
+import com.example.todo.model.Todo;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Converts Todo items to and from rows in PostgreSQL COPY CSV format.
+ * Columns are id, title, description, completed, created_at, completed_at.
+ * An unquoted empty field is NULL, a quoted empty field is an empty string.
+ */
+final class TodoCsv {
+    static final String COLUMNS = "id, title, description, completed, created_at, completed_at";
+    static final String COLUMNS_WITHOUT_ID = "title, description, completed, created_at, completed_at";
+
+    private TodoCsv() {
+    }
+
+    /**
+     * Appends one CSV row for the Todo, terminated by a newline.
+     *
+     * @param row buffer to append to
+     * @param todo the Todo item to encode
+     * @param includeId whether to write the id column
+     */
+    static void appendRow(StringBuilder row, Todo todo, boolean includeId) {
+        if (includeId) {
+            appendField(row, todo.getId() == null ? null : todo.getId().toString());
+            row.append(',');
+        }
+        appendField(row, todo.getTitle());
+        row.append(',');
+        appendField(row, todo.getDescription());
+        row.append(',');
+        row.append(todo.isCompleted() ? 't' : 'f');
+        row.append(',');
+        row.append(new Timestamp(todo.getCreatedAt()));
+        row.append(',');
+        if (todo.isCompleted() && todo.getCompletedAt() != null) {
+            row.append(new Timestamp(todo.getCompletedAt()));
+        }
+        row.append('\n');
+    }
+
+    /**
+     * Parses one COPY TO STDOUT CSV row with all columns.
+     *
+     * @param data the raw row bytes as delivered by the server
+     * @return the decoded Todo item
+     * @throws IllegalArgumentException if the row does not have six columns
+     */
+    static Todo parseRow(byte[] data) {
+        List<String> fields = splitRow(new String(data, StandardCharsets.UTF_8));
+        if (fields.size() != 6) {
+            throw new IllegalArgumentException("Expected 6 columns but got " + fields.size());
+        }
+        Todo todo = new Todo();
+        todo.setId(Integer.valueOf(fields.get(0)));
+        todo.setTitle(fields.get(1));
+        todo.setDescription(fields.get(2));
+        todo.setCompleted("t".equals(fields.get(3)));
+        todo.setCreatedAt(Timestamp.valueOf(fields.get(4)).getTime());
+        String completedAt = fields.get(5);
+        todo.setCompletedAt(completedAt == null ? null : Timestamp.valueOf(completedAt).getTime());
+        return todo;
+    }
+
+    private static void appendField(StringBuilder row, String value) {
+        if (value == null) {
+            return;
+        }
+        // An unquoted \. is COPY's end-of-data marker
+        boolean quote = value.isEmpty() || value.equals("\\.");
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            row.append(value);
+            return;
+        }
+        row.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                row.append('"');
+            }
+            row.append(c);
+        }
+        row.append('"');
+    }
+
+    private static List<String> splitRow(String line) {
+        List<String> fields = new ArrayList<>(6);
+        int end = line.length();
+        if (end > 0 && line.charAt(end - 1) == '\n') {
+            end--;
+        }
+        int i = 0;
+        while (true) {
+            if (i < end && line.charAt(i) == '"') {
+                StringBuilder field = new StringBuilder();
+                i++;
+                while (i < end) {
+                    char c = line.charAt(i++);
+                    if (c == '"') {
+                        if (i < end && line.charAt(i) == '"') {
+                            field.append('"');
+                            i++;
+                        } else {
+                            break;
+                        }
+                    } else {
+                        field.append(c);
+                    }
+                }
+                fields.add(field.toString());
+            } else {
+                int comma = line.indexOf(',', i);
+                int fieldEnd = comma < 0 || comma > end ? end : comma;
+                fields.add(fieldEnd == i ? null : line.substring(i, fieldEnd));
+                i = fieldEnd;
+            }
+            if (i >= end) {
+                return fields;
+            }
+            // Skip the separating comma
+            i++;
+            if (i == end) {
+                fields.add(null);
+                return fields;
+            }
+        }
+    }
+}
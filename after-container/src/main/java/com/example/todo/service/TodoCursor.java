@@ -0,0 +1,109 @@
+package com.example.todo.service;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.Base64;
+import java.util.Objects;
+
+/**
+ * Keyset pagination position in the (created_at DESC, id DESC) ordering of todos.
+ * Encoded for clients as an opaque URL-safe token. The timestamp is kept in
+ * microseconds, the precision of the column, so rows that differ by less
+ * than a millisecond are neither skipped nor repeated at a page boundary.
+ */
+public class TodoCursor {
+    private final long createdAtMicros;
+    private final int id;
+
+    /**
+     * Creates a cursor pointing just past the given row.
+     *
+     * @param createdAtMicros creation timestamp of the last row returned, in microseconds
+     * @param id ID of the last row returned
+     */
+    public TodoCursor(long createdAtMicros, int id) {
+        this.createdAtMicros = createdAtMicros;
+        this.id = id;
+    }
+
+    /**
+     * Creates a cursor pointing just past a row read from the database.
+     *
+     * @param createdAt the row's created_at value
+     * @param id the row's ID
+     * @return the cursor
+     */
+    public static TodoCursor after(Timestamp createdAt, int id) {
+        long seconds = Math.floorDiv(createdAt.getTime(), 1000L);
+        return new TodoCursor(seconds * 1_000_000L + createdAt.getNanos() / 1000, id);
+    }
+
+    public long getCreatedAtMicros() {
+        return createdAtMicros;
+    }
+
+    /**
+     * Gets the cursor's timestamp for binding against created_at.
+     *
+     * @return the timestamp, to the microsecond
+     */
+    public Timestamp getCreatedAtTimestamp() {
+        Timestamp timestamp = new Timestamp(Math.floorDiv(createdAtMicros, 1_000_000L) * 1000L);
+        timestamp.setNanos((int) Math.floorMod(createdAtMicros, 1_000_000L) * 1000);
+        return timestamp;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Encodes the cursor as an opaque token.
+     *
+     * @return URL-safe token for the nextCursor response field
+     */
+    public String encode() {
+        String raw = createdAtMicros + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding()
+            .encodeToString(raw.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * Decodes a token produced by {@link #encode()}.
+     *
+     * @param token the cursor token sent by the client
+     * @return the decoded cursor
+     * @throws IllegalArgumentException if the token is malformed
+     */
+    public static TodoCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.US_ASCII);
+            int separator = raw.indexOf(':');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Invalid cursor: " + token);
+            }
+            return new TodoCursor(
+                Long.parseLong(raw.substring(0, separator)),
+                Integer.parseInt(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + token, e);
+        }
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        TodoCursor other = (TodoCursor) obj;
+        return createdAtMicros == other.createdAtMicros && id == other.id;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(createdAtMicros, id);
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.todo.service;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histograms for todo API requests, by HTTP method, and for
+ * TodoStorage operations, plus counters for requests shed under load.
+ * Everything is preallocated, so recording on the request path allocates
+ * nothing; the histograms are only walked when metrics are scraped.
+ */
+public class TodoMetrics {
+    static final String[] METHODS = {"GET", "POST", "PUT", "DELETE", "OTHER"};
+
+    private final LatencyHistogram[] requests = new LatencyHistogram[METHODS.length];
+    private final LatencyHistogram[] operations = new LatencyHistogram[StorageOperation.values().length];
+    private final LongAdder rejectedRequests = new LongAdder();
+    private final LongAdder expiredRequests = new LongAdder();
+
+    public TodoMetrics() {
+        for (int i = 0; i < requests.length; i++) {
+            requests[i] = new LatencyHistogram();
+        }
+        for (int i = 0; i < operations.length; i++) {
+            operations[i] = new LatencyHistogram();
+        }
+    }
+
+    /**
+     * Records how long a request took from arrival to response.
+     *
+     * @param method the HTTP method
+     * @param nanos elapsed time in nanoseconds
+     */
+    public void recordRequest(String method, long nanos) {
+        requests[methodIndex(method)].record(nanos);
+    }
+
+    /**
+     * Records how long a storage operation took, including borrowing a
+     * connection but not time spent streaming rows to or from the client.
+     *
+     * @param operation the operation
+     * @param nanos elapsed time in nanoseconds
+     */
+    public void recordOperation(StorageOperation operation, long nanos) {
+        operations[operation.ordinal()].record(nanos);
+    }
+
+    /**
+     * Counts a request rejected because the request executor was saturated.
+     */
+    public void recordRejected() {
+        rejectedRequests.increment();
+    }
+
+    /**
+     * Counts a request answered with 503 because it missed its deadline.
+     */
+    public void recordExpired() {
+        expiredRequests.increment();
+    }
+
+    /**
+     * Appends all request and storage metrics in Prometheus text format.
+     *
+     * @param out receives the exposition lines
+     */
+    public void appendTo(StringBuilder out) {
+        out.append("# HELP todo_http_request_duration_seconds Todo API request latency, including time queued and requests shed with 503.\n")
+            .append("# TYPE todo_http_request_duration_seconds histogram\n");
+        for (int i = 0; i < METHODS.length; i++) {
+            requests[i].appendTo(out, "todo_http_request_duration_seconds", "method=\"" + METHODS[i] + "\"");
+        }
+        out.append("# HELP todo_http_requests_rejected_total Requests answered with 503 because the executor was full.\n")
+            .append("# TYPE todo_http_requests_rejected_total counter\n")
+            .append("todo_http_requests_rejected_total ").append(rejectedRequests.sum()).append('\n');
+        out.append("# HELP todo_http_requests_expired_total Requests answered with 503 because they missed their deadline.\n")
+            .append("# TYPE todo_http_requests_expired_total counter\n")
+            .append("todo_http_requests_expired_total ").append(expiredRequests.sum()).append('\n');
+
+        out.append("# HELP todo_storage_operation_duration_seconds TodoStorage operation latency, including connection borrow, excluding client I/O.\n")
+            .append("# TYPE todo_storage_operation_duration_seconds histogram\n");
+        for (StorageOperation operation : StorageOperation.values()) {
+            operations[operation.ordinal()].appendTo(out, "todo_storage_operation_duration_seconds",
+                "operation=\"" + operation.getLabel() + "\"");
+        }
+    }
+
+    private static int methodIndex(String method) {
+        switch (method) {
+            case "GET":
+                return 0;
+            case "POST":
+                return 1;
+            case "PUT":
+                return 2;
+            case "DELETE":
+                return 3;
+            default:
+                return 4;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.todo.service;
+
+import java.util.Objects;
+
+/**
+ * Filter and page parameters for listing todos.
+ * Results are always ordered newest first by (created_at, id).
+ */
+public class TodoQuery {
+    public static final int DEFAULT_LIMIT = 100;
+    public static final int MAX_LIMIT = 1000;
+
+    private final int limit;
+    private final Boolean completed;
+    private final Long since;
+    private final TodoCursor cursor;
+
+    /**
+     * Creates a query.
+     *
+     * @param limit maximum number of items to return, clamped to 1..MAX_LIMIT
+     * @param completed completion status to match, or null for both
+     * @param since only include todos created at or after this time in milliseconds, or null
+     * @param cursor position to continue after, or null for the first page
+     */
+    public TodoQuery(int limit, Boolean completed, Long since, TodoCursor cursor) {
+        this.limit = Math.max(1, Math.min(limit, MAX_LIMIT));
+        this.completed = completed;
+        this.since = since;
+        this.cursor = cursor;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public Boolean getCompleted() {
+        return completed;
+    }
+
+    public Long getSince() {
+        return since;
+    }
+
+    public TodoCursor getCursor() {
+        return cursor;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        TodoQuery other = (TodoQuery) obj;
+        return limit == other.limit
+            && Objects.equals(completed, other.completed)
+            && Objects.equals(since, other.since)
+            && Objects.equals(cursor, other.cursor);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(limit, completed, since, cursor);
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.todo.service;
+
+import com.example.todo.model.Todo;
+import java.io.IOException;
+
+/**
+ * Receives Todo items one at a time as they are read from storage,
+ * so large result sets never have to be held in memory as a list.
+ */
+@FunctionalInterface
+public interface TodoSink {
+
+    /**
+     * Accepts the next Todo item.
+     *
+     * @param todo the Todo item read from storage
+     * @throws IOException if the item cannot be written downstream
+     */
+    void accept(Todo todo) throws IOException;
+}
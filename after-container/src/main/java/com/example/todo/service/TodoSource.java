@@ -0,0 +1,20 @@
+package com.example.todo.service;
+
+import com.example.todo.model.Todo;
+import java.io.IOException;
+
+/**
+ * Supplies Todo items one at a time, typically parsed incrementally from a
+ * request body, so bulk imports never hold the whole dataset in memory.
+ */
+@FunctionalInterface
+public interface TodoSource {
+
+    /**
+     * Reads the next Todo item.
+     *
+     * @return the next Todo item, or null when the source is exhausted
+     * @throws IOException if the item cannot be read upstream
+     */
+    Todo next() throws IOException;
+}
@@ -1,13 +1,35 @@
 package com.example.todo.service;
 
 import com.example.todo.model.Todo;
+import com.example.todo.model.TodoBatch;
+import com.example.todo.model.TodoBatchResult;
+import com.example.todo.model.TodoChanges;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.sql.DataSource;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyManager;
+import org.postgresql.copy.CopyOut;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -16,35 +38,134 @@
  */
 public class TodoStorage implements AutoCloseable {
     private static final Logger logger = LoggerFactory.getLogger(TodoStorage.class);
-    private final Connection connection;
+    private static final int FETCH_SIZE = 200;
+    private static final int INSERT_CHUNK_SIZE = 1000;
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+    private static final String COPY_OUT_QUERY =
+        "COPY (SELECT " + TodoCsv.COLUMNS + " FROM todos ORDER BY id) TO STDOUT WITH (FORMAT csv)";
+    private static final String TODO_COLUMNS =
+        "id, title, description, completed, created_at, completed_at";
+    // Without Postgres transaction IDs, how long a missing change log
+    // sequence number may belong to an open transaction
+    private static final long CHANGE_SETTLE_MILLIS = 10_000;
+    // Oldest transaction still open, as seen by the statement it is selected in
+    private static final String SNAPSHOT_XMIN = "txid_snapshot_xmin(txid_current_snapshot())";
+    private static final String SETTLED_CHANGED_AT =
+        "changed_at <= LOCALTIMESTAMP - INTERVAL '" + CHANGE_SETTLE_MILLIS / 1000 + "' SECOND";
+    private final DataSource dataSource;
+    private TodoMetrics metrics = new TodoMetrics();
+    // Bumped after every write, including failed ones, since a write may
+    // have reached the database before it failed
+    private final AtomicLong dataVersion = new AtomicLong();
+    // Postgres has NOTIFY and transaction IDs; other databases, such as H2 in
+    // the benchmarks, get the change log without either
+    private boolean postgres;
+    // Tags this instance's NOTIFY messages so onChange can skip them
+    private final String instanceId =
+        Long.toString(ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE, 36);
 
     /**
-     * Initializes TodoStorage with a database connection.
+     * Initializes TodoStorage with a pooled data source.
+     * Each operation borrows its own connection, so request threads no longer
+     * serialize on a single shared connection.
      *
-     * @param connection The database connection to use
+     * @param dataSource The data source to borrow connections from
      */
-    public TodoStorage(Connection connection) {
-        this.connection = connection;
+    public TodoStorage(DataSource dataSource) {
+        this.dataSource = dataSource;
         initializeDatabase();
     }
 
+    /**
+     * Sets the metrics every storage operation is timed into.
+     * Call before the storage is shared between threads.
+     *
+     * @param metrics the metrics to record into
+     */
+    public void setMetrics(TodoMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Gets a version of the stored todos that changes on every create,
+     * update, delete, batch and import made through this instance. It is
+     * bumped once the write has finished, so data read after this call is at
+     * least as new as the returned version. Writes made by other instances
+     * bump it only once onChange hears of them.
+     *
+     * @return the current data version
+     */
+    public long getDataVersion() {
+        return dataVersion.get();
+    }
+
+    /**
+     * Takes note of a write committed by any instance, as delivered by
+     * TodoChangeFeed. This instance's own writes are skipped, since they
+     * were already accounted for when they were made.
+     *
+     * @param change the committed change
+     */
+    public void onChange(TodoChange change) {
+        if (instanceId.equals(change.getOrigin())) {
+            return;
+        }
+        evict(change);
+        dataVersion.incrementAndGet();
+    }
+
+    /**
+     * Drops anything derived from the todos another instance changed.
+     * Nothing is kept here; caching subclasses override this.
+     *
+     * @param change the change made elsewhere
+     */
+    protected void evict(TodoChange change) {
+    }
+
+    /**
+     * Gets a snapshot of the connection pool state.
+     *
+     * @return pool statistics, or null if the data source is not a HikariCP pool
+     */
+    public PoolStats getPoolStats() {
+        if (!(dataSource instanceof HikariDataSource)) {
+            return null;
+        }
+        HikariDataSource hikari = (HikariDataSource) dataSource;
+        HikariPoolMXBean pool = hikari.getHikariPoolMXBean();
+        if (pool == null) {
+            return null;
+        }
+        return new PoolStats(
+            pool.getActiveConnections(),
+            pool.getIdleConnections(),
+            pool.getTotalConnections(),
+            pool.getThreadsAwaitingConnection(),
+            hikari.getMaximumPoolSize());
+    }
+
     /**
      * Checks the health of the database connection.
      * 
      * @return true if connection is healthy, false otherwise
      */
     public boolean checkHealth() {
-        try (Statement stmt = connection.createStatement()) {
+        long start = System.nanoTime();
+        try (Connection connection = dataSource.getConnection();
+             Statement stmt = connection.createStatement()) {
             stmt.execute("SELECT 1");
             return true;
         } catch (SQLException e) {
             logger.error("Database health check failed", e);
             return false;
+        } finally {
+            metrics.recordOperation(StorageOperation.HEALTH_CHECK, System.nanoTime() - start);
         }
     }
 
     /**
-     * Creates the todos table if it doesn't exist.
+     * Creates the todos and todo_changes tables if they don't exist.
      */
     public void initializeDatabase() {
         String createTableQuery = "CREATE TABLE IF NOT EXISTS todos ("
@@ -55,8 +176,26 @@ public void initializeDatabase() {
             + "created_at TIMESTAMP NOT NULL,"
             + "completed_at TIMESTAMP)";
 
-        try (Statement stmt = connection.createStatement()) {
+        String createIndexQuery = "CREATE INDEX IF NOT EXISTS idx_todos_created_at_id "
+            + "ON todos (created_at DESC, id DESC)";
+
+        // One row per changed todo; a null todo_id means anything may have changed.
+        // horizon is the first transaction ID not yet assigned once the row's seq
+        // was taken: every transaction holding a smaller seq has a smaller ID.
+        String createChangesQuery = "CREATE TABLE IF NOT EXISTS todo_changes ("
+            + "seq BIGSERIAL PRIMARY KEY,"
+            + "todo_id INTEGER,"
+            + "changed_at TIMESTAMP NOT NULL,"
+            + "horizon BIGINT)";
+        String addHorizonQuery = "ALTER TABLE todo_changes ADD COLUMN IF NOT EXISTS horizon BIGINT";
+
+        try (Connection connection = dataSource.getConnection();
+             Statement stmt = connection.createStatement()) {
             stmt.execute(createTableQuery);
+            stmt.execute(createIndexQuery);
+            stmt.execute(createChangesQuery);
+            stmt.execute(addHorizonQuery);
+            postgres = "PostgreSQL".equals(connection.getMetaData().getDatabaseProductName());
             logger.info("Database initialized successfully");
         } catch (SQLException e) {
             logger.error("Failed to initialize database", e);
@@ -71,37 +210,157 @@ public void initializeDatabase() {
      * @throws RuntimeException if database access fails
      */
     public List<Todo> getAllTodos() {
+        long start = System.nanoTime();
         List<Todo> todos = new ArrayList<>();
         String query = "SELECT * FROM todos ORDER BY created_at DESC";
 
-        try (PreparedStatement stmt = connection.prepareStatement(query);
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(query);
              ResultSet rs = stmt.executeQuery()) {
 
             while (rs.next()) {
-                Todo todo = new Todo();
-                todo.setId(rs.getInt("id"));
-                todo.setTitle(rs.getString("title"));
-                todo.setDescription(rs.getString("description"));
-                todo.setCompleted(rs.getBoolean("completed"));
-                todo.setCreatedAt(rs.getTimestamp("created_at").getTime());
-                
-                // Fix: First get the timestamp as an object, then check if it was null
-                java.sql.Timestamp completedAt = rs.getTimestamp("completed_at");
-                if (completedAt == null) {
-                    todo.setCompletedAt(null);
-                } else {
-                    todo.setCompletedAt(completedAt.getTime());
-                }
-                todos.add(todo);
+                todos.add(mapTodo(rs));
             }
         } catch (SQLException e) {
             logger.error("Failed to retrieve todos", e);
             throw new RuntimeException("Failed to retrieve todos", e);
+        } finally {
+            metrics.recordOperation(StorageOperation.GET_ALL, System.nanoTime() - start);
         }
 
         return todos;
     }
 
+    /**
+     * Retrieves a single Todo item by its ID.
+     *
+     * @param id the ID of the Todo item
+     * @return the Todo item, or null if not found
+     * @throws RuntimeException if database access fails
+     */
+    public Todo getTodo(int id) {
+        long start = System.nanoTime();
+        String query = "SELECT " + TODO_COLUMNS + " FROM todos WHERE id = ?";
+
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(query)) {
+            stmt.setInt(1, id);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? mapTodo(rs) : null;
+            }
+        } catch (SQLException e) {
+            logger.error("Failed to retrieve todo", e);
+            throw new RuntimeException("Failed to retrieve todo", e);
+        } finally {
+            metrics.recordOperation(StorageOperation.GET, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Streams one page of Todo items matching the query, newest first.
+     * Rows are handed to the sink as they arrive from the driver, and the
+     * fetch size keeps PgJDBC from buffering the whole result set.
+     *
+     * @param query filters and keyset position for the page
+     * @param sink receives each Todo item in order
+     * @return cursor for the next page, or null if this was the last page
+     * @throws IOException if the sink fails to write an item
+     * @throws RuntimeException if database access fails
+     */
+    public TodoCursor streamTodos(TodoQuery query, TodoSink sink) throws IOException {
+        long start = System.nanoTime();
+        ClientIoTimer clientIo = new ClientIoTimer();
+        TodoSink timedSink = clientIo.wrap(sink);
+        StringBuilder sql = new StringBuilder("SELECT ").append(TODO_COLUMNS)
+            .append(" FROM todos WHERE 1 = 1");
+        if (query.getCompleted() != null) {
+            sql.append(" AND completed = ?");
+        }
+        if (query.getSince() != null) {
+            sql.append(" AND created_at >= ?");
+        }
+        if (query.getCursor() != null) {
+            sql.append(" AND (created_at, id) < (?, ?)");
+        }
+        sql.append(" ORDER BY created_at DESC, id DESC LIMIT ?");
+
+        try (Connection connection = dataSource.getConnection()) {
+            // PgJDBC only honours the fetch size inside a transaction
+            connection.setAutoCommit(false);
+            try (PreparedStatement stmt = connection.prepareStatement(sql.toString())) {
+                int index = 1;
+                if (query.getCompleted() != null) {
+                    stmt.setBoolean(index++, query.getCompleted());
+                }
+                if (query.getSince() != null) {
+                    stmt.setTimestamp(index++, new java.sql.Timestamp(query.getSince()));
+                }
+                if (query.getCursor() != null) {
+                    stmt.setTimestamp(index++, query.getCursor().getCreatedAtTimestamp());
+                    stmt.setInt(index++, query.getCursor().getId());
+                }
+                // Fetch one extra row to learn whether another page exists
+                stmt.setInt(index, query.getLimit() + 1);
+                stmt.setFetchSize(FETCH_SIZE);
+
+                TodoCursor next = null;
+                try (ResultSet rs = stmt.executeQuery()) {
+                    int count = 0;
+                    Todo last = null;
+                    // Todo holds milliseconds; the cursor needs the column's full precision
+                    java.sql.Timestamp lastCreatedAt = null;
+                    while (rs.next()) {
+                        if (count == query.getLimit()) {
+                            next = TodoCursor.after(lastCreatedAt, last.getId());
+                            break;
+                        }
+                        last = mapTodo(rs);
+                        lastCreatedAt = rs.getTimestamp("created_at");
+                        timedSink.accept(last);
+                        count++;
+                    }
+                }
+                connection.commit();
+                return next;
+            } finally {
+                if (!connection.getAutoCommit()) {
+                    connection.rollback();
+                    connection.setAutoCommit(true);
+                }
+            }
+        } catch (SQLException e) {
+            logger.error("Failed to stream todos", e);
+            throw new RuntimeException("Failed to stream todos", e);
+        } finally {
+            metrics.recordOperation(StorageOperation.STREAM, System.nanoTime() - start - clientIo.nanos());
+        }
+    }
+
+    /**
+     * Maps the current result set row to a Todo item.
+     *
+     * @param rs result set positioned on a todos row
+     * @return the mapped Todo item
+     * @throws SQLException if a column cannot be read
+     */
+    private Todo mapTodo(ResultSet rs) throws SQLException {
+        Todo todo = new Todo();
+        todo.setId(rs.getInt("id"));
+        todo.setTitle(rs.getString("title"));
+        todo.setDescription(rs.getString("description"));
+        todo.setCompleted(rs.getBoolean("completed"));
+        todo.setCreatedAt(rs.getTimestamp("created_at").getTime());
+
+        // Fix: First get the timestamp as an object, then check if it was null
+        java.sql.Timestamp completedAt = rs.getTimestamp("completed_at");
+        if (completedAt == null) {
+            todo.setCompletedAt(null);
+        } else {
+            todo.setCompletedAt(completedAt.getTime());
+        }
+        return todo;
+    }
+
     /**
      * Creates a new Todo item in the database.
      *
@@ -113,32 +372,32 @@ public Todo createTodo(Todo todo) {
             "INSERT INTO todos (title, description, completed, created_at, completed_at) "
             + "VALUES (?, ?, ?, ?, ?)";
 
-        try (PreparedStatement stmt = connection.prepareStatement(query, Statement.RETURN_GENERATED_KEYS)) {
-            stmt.setString(1, todo.getTitle());
-            stmt.setString(2, todo.getDescription());
-            stmt.setBoolean(3, todo.isCompleted());
-            stmt.setTimestamp(4, new java.sql.Timestamp(todo.getCreatedAt()));
+        return inWriteTransaction(StorageOperation.CREATE, "create todo", connection -> {
+            try (PreparedStatement stmt = connection.prepareStatement(query, Statement.RETURN_GENERATED_KEYS)) {
+                stmt.setString(1, todo.getTitle());
+                stmt.setString(2, todo.getDescription());
+                stmt.setBoolean(3, todo.isCompleted());
+                stmt.setTimestamp(4, new java.sql.Timestamp(todo.getCreatedAt()));
 
-            if (todo.isCompleted()) {
-                stmt.setTimestamp(5, new java.sql.Timestamp(todo.getCompletedAt()));
-            } else {
-                stmt.setNull(5, java.sql.Types.TIMESTAMP);
-            }
+                if (todo.isCompleted()) {
+                    stmt.setTimestamp(5, new java.sql.Timestamp(todo.getCompletedAt()));
+                } else {
+                    stmt.setNull(5, java.sql.Types.TIMESTAMP);
+                }
 
-            stmt.executeUpdate();
+                stmt.executeUpdate();
 
-            try (ResultSet rs = stmt.getGeneratedKeys()) {
-                if (rs.next()) {
-                    todo.setId(rs.getInt(1));
+                try (ResultSet rs = stmt.getGeneratedKeys()) {
+                    if (rs.next()) {
+                        todo.setId(rs.getInt(1));
+                    }
                 }
             }
+            logChanges(connection, TodoChange.Type.CREATED, List.of(todo.getId()));
 
             logger.info("Created todo with id: {}", todo.getId());
             return todo;
-        } catch (SQLException e) {
-            logger.error("Failed to create todo", e);
-            throw new RuntimeException("Failed to create todo", e);
-        }
+        });
     }
 
     /**
@@ -153,27 +412,27 @@ public Todo updateTodo(Todo todo) {
             + "SET title = ?, description = ?, completed = ?, completed_at = ? "
             + "WHERE id = ?";
 
-        try (PreparedStatement stmt = connection.prepareStatement(query)) {
-            stmt.setString(1, todo.getTitle());
-            stmt.setString(2, todo.getDescription());
-            stmt.setBoolean(3, todo.isCompleted());
+        return inWriteTransaction(StorageOperation.UPDATE, "update todo", connection -> {
+            try (PreparedStatement stmt = connection.prepareStatement(query)) {
+                stmt.setString(1, todo.getTitle());
+                stmt.setString(2, todo.getDescription());
+                stmt.setBoolean(3, todo.isCompleted());
 
-            if (todo.isCompleted()) {
-                stmt.setTimestamp(4, new java.sql.Timestamp(todo.getCompletedAt()));
-            } else {
-                stmt.setNull(4, java.sql.Types.TIMESTAMP);
-            }
-            stmt.setInt(5, todo.getId());
+                if (todo.isCompleted()) {
+                    stmt.setTimestamp(4, new java.sql.Timestamp(todo.getCompletedAt()));
+                } else {
+                    stmt.setNull(4, java.sql.Types.TIMESTAMP);
+                }
+                stmt.setInt(5, todo.getId());
 
-            int rowsAffected = stmt.executeUpdate();
-            if (rowsAffected == 0) {
-                return null;
+                int rowsAffected = stmt.executeUpdate();
+                if (rowsAffected == 0) {
+                    return null;
+                }
             }
+            logChanges(connection, TodoChange.Type.UPDATED, List.of(todo.getId()));
             return todo;
-        } catch (SQLException e) {
-            logger.error("Failed to update todo", e);
-            throw new RuntimeException("Failed to update todo", e);
-        }
+        });
     }
 
     /**
@@ -202,32 +461,681 @@ public boolean deleteTodo(String id) {
     public boolean deleteTodo(int id) {
         String query = "DELETE FROM todos WHERE id = ?";
 
-        try (PreparedStatement stmt = connection.prepareStatement(query)) {
+        return inWriteTransaction(StorageOperation.DELETE, "delete todo", connection -> {
+            try (PreparedStatement stmt = connection.prepareStatement(query)) {
+                stmt.setInt(1, id);
+                if (stmt.executeUpdate() == 0) {
+                    return false;
+                }
+            }
+            logChanges(connection, TodoChange.Type.DELETED, List.of(id));
+            logger.info("Deleted todo with id: {}", id);
+            return true;
+        });
+    }
+
+    /**
+     * Applies a batch of creates, updates and deletes in a single transaction.
+     * Creates, updates and deletes each go through JDBC batching; creates
+     * are sent in batches of INSERT_CHUNK_SIZE and read back their generated
+     * IDs in request order.
+     * Either every operation is committed or none is.
+     *
+     * @param batch the operations to apply
+     * @return generated IDs and affected row counts
+     * @throws RuntimeException if database access fails; the transaction is rolled back
+     */
+    public TodoBatchResult executeBatch(TodoBatch batch) {
+        return inWriteTransaction(StorageOperation.BATCH, "apply todo batch", connection -> {
+            List<Integer> created = insertTodos(connection, batch.getCreate());
+            int updated = updateTodos(connection, batch.getUpdate());
+            int deleted = deleteTodos(connection, batch.getDelete());
+
+            List<Integer> updatedIds = new ArrayList<>(batch.getUpdate().size());
+            for (Todo todo : batch.getUpdate()) {
+                updatedIds.add(todo.getId());
+            }
+            logChanges(connection, TodoChange.Type.CREATED, created);
+            logChanges(connection, TodoChange.Type.UPDATED, updatedIds);
+            logChanges(connection, TodoChange.Type.DELETED, batch.getDelete());
+
+            logger.info("Applied todo batch: {} created, {} updated, {} deleted",
+                created.size(), updated, deleted);
+            return new TodoBatchResult(created, updated, deleted);
+        });
+    }
+
+    /**
+     * Runs a write and its change log entries in one transaction, rolling
+     * back on any failure.
+     *
+     * @param operation the operation to time the write as
+     * @param action what the write does, for error messages
+     * @param work the write to run
+     * @return the result of the work
+     * @throws RuntimeException if database access fails
+     */
+    private <T> T inWriteTransaction(StorageOperation operation, String action, WriteWork<T> work) {
+        long start = System.nanoTime();
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                T result = work.run(connection);
+                connection.commit();
+                return result;
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            logger.error("Failed to {}", action, e);
+            throw new RuntimeException("Failed to " + action, e);
+        } finally {
+            dataVersion.incrementAndGet();
+            metrics.recordOperation(operation, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Appends one change log entry per ID and notifies listening instances.
+     * Call it last in the transaction: sequence numbers are taken here, and
+     * getChanges has to wait out transactions still holding an uncommitted one.
+     */
+    private void logChanges(Connection connection, TodoChange.Type type, List<Integer> ids) throws SQLException {
+        if (ids.isEmpty()) {
+            return;
+        }
+        appendChanges(connection, ids);
+        notifyChange(connection, new TodoChange(instanceId, type, ids));
+    }
+
+    /**
+     * Appends an entry telling clients that anything may have changed.
+     */
+    private void logReset(Connection connection) throws SQLException {
+        appendChanges(connection, Collections.singletonList(null));
+        notifyChange(connection, new TodoChange(instanceId, TodoChange.Type.RESET, List.of()));
+    }
+
+    /**
+     * Inserts change log rows, stamped with the database clock. On Postgres
+     * the transaction ID is assigned before any sequence number is taken, and
+     * the rows' horizon is set by a later statement, whose snapshot was taken
+     * after their sequence numbers. A transaction holding a smaller sequence
+     * number therefore has an ID below the horizon, and once the oldest open
+     * transaction is past the horizon every gap below the row is final.
+     *
+     * @param ids changed todo IDs; a null ID marks a reset
+     */
+    private void appendChanges(Connection connection, List<Integer> ids) throws SQLException {
+        if (!postgres) {
+            try (PreparedStatement stmt = connection.prepareStatement(
+                    "INSERT INTO todo_changes (todo_id, changed_at) VALUES (?, LOCALTIMESTAMP)")) {
+                for (Integer id : ids) {
+                    setChangedId(stmt, id);
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+            }
+            return;
+        }
+
+        // txid_current() in the WHERE clause runs before the seq default is evaluated
+        String insert = "INSERT INTO todo_changes (todo_id, changed_at) "
+            + "SELECT CAST(? AS INTEGER), clock_timestamp() WHERE txid_current() IS NOT NULL";
+        long firstSeq = Long.MAX_VALUE;
+        try (PreparedStatement stmt = connection.prepareStatement(insert, new String[] {"seq"})) {
+            for (Integer id : ids) {
+                setChangedId(stmt, id);
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+            try (ResultSet rs = stmt.getGeneratedKeys()) {
+                while (rs.next()) {
+                    firstSeq = Math.min(firstSeq, rs.getLong(1));
+                }
+            }
+        }
+        // Rows of other writers are either invisible here or already have a horizon
+        try (PreparedStatement stmt = connection.prepareStatement(
+                "UPDATE todo_changes SET horizon = txid_snapshot_xmax(txid_current_snapshot()) "
+                + "WHERE seq >= ? AND horizon IS NULL")) {
+            stmt.setLong(1, firstSeq);
+            stmt.executeUpdate();
+        }
+    }
+
+    private static void setChangedId(PreparedStatement stmt, Integer id) throws SQLException {
+        if (id == null) {
+            stmt.setNull(1, java.sql.Types.INTEGER);
+        } else {
             stmt.setInt(1, id);
-            int rowsAffected = stmt.executeUpdate();
-            if (rowsAffected > 0) {
-                logger.info("Deleted todo with id: {}", id);
-                return true;
+        }
+    }
+
+    /**
+     * Sends the change to every TodoChangeFeed over NOTIFY. Postgres holds
+     * notifications back until the transaction commits and drops them if it
+     * rolls back, so listeners never hear of writes that did not happen.
+     */
+    private void notifyChange(Connection connection, TodoChange change) throws SQLException {
+        if (!postgres) {
+            return;
+        }
+        try (PreparedStatement stmt = connection.prepareStatement("SELECT pg_notify(?, ?)")) {
+            for (String payload : change.encode()) {
+                stmt.setString(1, TodoChangeFeed.CHANNEL);
+                stmt.setString(2, payload);
+                stmt.executeQuery().close();
             }
-            return false;
+        }
+    }
+
+    /**
+     * Reads what changed after a sync token from the change log. Entries are
+     * read in sequence order up to the first sequence number that is missing:
+     * it may belong to a transaction that has not committed yet, so nothing
+     * past it is returned until it turns up or, on Postgres, until every
+     * transaction older than the next entry's horizon has ended, after which
+     * it is taken to be rolled back. A long-open transaction anywhere on the
+     * server therefore holds sync back rather than losing changes. Other
+     * databases wait CHANGE_SETTLE_MILLIS by the database clock instead.
+     * Without a token, or when the log no longer covers it, the result asks
+     * for a full reload.
+     *
+     * @param since token from a previous sync, or null to start syncing
+     * @param limit maximum number of change log entries to read
+     * @return the changed todos and the token to sync from next
+     * @throws IllegalArgumentException if the token is malformed
+     * @throws RuntimeException if database access fails
+     */
+    public TodoChanges getChanges(String since, int limit) {
+        long start = System.nanoTime();
+        try (Connection connection = dataSource.getConnection()) {
+            if (since == null) {
+                return new TodoChanges(List.of(), List.of(),
+                    Long.toString(settledSeq(connection)), false, true);
+            }
+            long token = parseChangeToken(since);
+            if (token > latestSeq(connection)) {
+                // Issued before the log was recreated
+                return new TodoChanges(List.of(), List.of(),
+                    Long.toString(settledSeq(connection)), false, true);
+            }
+
+            // The horizon test needs the snapshot of the statement reading the log
+            String query = "SELECT seq, todo_id, changed_at, horizon, LOCALTIMESTAMP AS db_now, "
+                + (postgres ? SNAPSHOT_XMIN : "NULL") + " AS oldest_xid FROM todo_changes "
+                + "WHERE seq > ? ORDER BY seq LIMIT ?";
+            Set<Integer> ids = new LinkedHashSet<>();
+            long next = token;
+            boolean hasMore = false;
+            try (PreparedStatement stmt = connection.prepareStatement(query)) {
+                stmt.setLong(1, token);
+                stmt.setInt(2, limit + 1);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    int count = 0;
+                    while (rs.next()) {
+                        long seq = rs.getLong("seq");
+                        if (seq != next + 1 && !gapSettled(rs)) {
+                            break;
+                        }
+                        if (count == limit) {
+                            hasMore = true;
+                            break;
+                        }
+                        int id = rs.getInt("todo_id");
+                        if (rs.wasNull()) {
+                            return new TodoChanges(List.of(), List.of(), Long.toString(seq), false, true);
+                        }
+                        ids.add(id);
+                        next = seq;
+                        count++;
+                    }
+                }
+            }
+
+            List<Todo> updated = getTodos(connection, ids);
+            for (Todo todo : updated) {
+                ids.remove(todo.getId());
+            }
+            return new TodoChanges(updated, new ArrayList<>(ids), Long.toString(next), hasMore, false);
+        } catch (SQLException e) {
+            logger.error("Failed to read todo changes", e);
+            throw new RuntimeException("Failed to read todo changes", e);
+        } finally {
+            metrics.recordOperation(StorageOperation.CHANGES, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Drops change log entries older than the retention period. The newest
+     * dropped entry is kept as a reset marker, so clients holding an older
+     * token reload everything instead of missing changes.
+     *
+     * @param retention how long entries are kept
+     * @return number of entries dropped
+     * @throws RuntimeException if database access fails
+     */
+    public int pruneChanges(Duration retention) {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                long marker;
+                try (PreparedStatement stmt = connection.prepareStatement(
+                        "SELECT MAX(seq) FROM todo_changes "
+                        + "WHERE changed_at < LOCALTIMESTAMP - CAST(? AS DOUBLE PRECISION) * INTERVAL '1' SECOND")) {
+                    // changed_at is stamped by the database clock, so the cutoff is too
+                    stmt.setDouble(1, retention.toMillis() / 1000.0);
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        rs.next();
+                        marker = rs.getLong(1);
+                    }
+                }
+                int pruned = 0;
+                if (marker > 0) {
+                    try (PreparedStatement stmt = connection.prepareStatement(
+                            "DELETE FROM todo_changes WHERE seq < ?")) {
+                        stmt.setLong(1, marker);
+                        pruned = stmt.executeUpdate();
+                    }
+                    try (PreparedStatement stmt = connection.prepareStatement(
+                            "UPDATE todo_changes SET todo_id = NULL WHERE seq = ?")) {
+                        stmt.setLong(1, marker);
+                        stmt.executeUpdate();
+                    }
+                }
+                connection.commit();
+                logger.info("Pruned {} todo change log entries", pruned);
+                return pruned;
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            logger.error("Failed to prune todo changes", e);
+            throw new RuntimeException("Failed to prune todo changes", e);
+        }
+    }
+
+    private static long parseChangeToken(String token) {
+        try {
+            long seq = Long.parseLong(token);
+            if (seq >= 0) {
+                return seq;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        throw new IllegalArgumentException("since must be a token from a previous sync");
+    }
+
+    private static long latestSeq(Connection connection) throws SQLException {
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT MAX(seq) FROM todo_changes")) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    /**
+     * Checks whether the sequence numbers missing before the current change
+     * log row can no longer be committed: every transaction that could hold
+     * one has ended, or, for rows without a horizon, the row is older than
+     * CHANGE_SETTLE_MILLIS.
+     */
+    private static boolean gapSettled(ResultSet rs) throws SQLException {
+        long horizon = rs.getLong("horizon");
+        if (!rs.wasNull()) {
+            return rs.getLong("oldest_xid") >= horizon;
+        }
+        long settledBefore = rs.getTimestamp("db_now").getTime() - CHANGE_SETTLE_MILLIS;
+        return rs.getTimestamp("changed_at").getTime() <= settledBefore;
+    }
+
+    /**
+     * Gets the newest sequence number no transaction can still be filling in
+     * below, so a client starting from it misses nothing.
+     */
+    private long settledSeq(Connection connection) throws SQLException {
+        String query = postgres
+            ? "SELECT MAX(seq) FROM todo_changes WHERE horizon <= " + SNAPSHOT_XMIN
+                + " OR (horizon IS NULL AND " + SETTLED_CHANGED_AT + ")"
+            : "SELECT MAX(seq) FROM todo_changes WHERE " + SETTLED_CHANGED_AT;
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery(query)) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    private List<Todo> getTodos(Connection connection, Set<Integer> ids) throws SQLException {
+        List<Todo> todos = new ArrayList<>(ids.size());
+        if (ids.isEmpty()) {
+            return todos;
+        }
+        StringBuilder query = new StringBuilder("SELECT ").append(TODO_COLUMNS)
+            .append(" FROM todos WHERE id IN (");
+        for (int i = 0; i < ids.size(); i++) {
+            query.append(i == 0 ? "?" : ", ?");
+        }
+        query.append(')');
+
+        Map<Integer, Todo> found = new HashMap<>();
+        try (PreparedStatement stmt = connection.prepareStatement(query.toString())) {
+            int index = 1;
+            for (Integer id : ids) {
+                stmt.setInt(index++, id);
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    Todo todo = mapTodo(rs);
+                    found.put(todo.getId(), todo);
+                }
+            }
+        }
+        // Keep the order in which the todos changed
+        for (Integer id : ids) {
+            Todo todo = found.get(id);
+            if (todo != null) {
+                todos.add(todo);
+            }
+        }
+        return todos;
+    }
+
+    private List<Integer> insertTodos(Connection connection, List<Todo> todos) throws SQLException {
+        List<Integer> ids = new ArrayList<>(todos.size());
+        if (todos.isEmpty()) {
+            return ids;
+        }
+        String query =
+            "INSERT INTO todos (title, description, completed, created_at, completed_at) "
+            + "VALUES (?, ?, ?, ?, ?)";
+
+        // Keys of a batch come back one per statement, in the order the statements were added
+        try (PreparedStatement stmt = connection.prepareStatement(query, new String[] {"id"})) {
+            for (int start = 0; start < todos.size(); start += INSERT_CHUNK_SIZE) {
+                List<Todo> chunk = todos.subList(start, Math.min(start + INSERT_CHUNK_SIZE, todos.size()));
+                for (Todo todo : chunk) {
+                    stmt.setString(1, todo.getTitle());
+                    stmt.setString(2, todo.getDescription());
+                    stmt.setBoolean(3, todo.isCompleted());
+                    stmt.setTimestamp(4, new java.sql.Timestamp(todo.getCreatedAt()));
+                    setCompletedAt(stmt, 5, todo);
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+                try (ResultSet rs = stmt.getGeneratedKeys()) {
+                    int i = 0;
+                    while (rs.next()) {
+                        int id = rs.getInt(1);
+                        chunk.get(i++).setId(id);
+                        ids.add(id);
+                    }
+                    if (i != chunk.size()) {
+                        throw new SQLException("Expected " + chunk.size() + " generated IDs, got " + i);
+                    }
+                }
+            }
+        }
+        return ids;
+    }
+
+    private int updateTodos(Connection connection, List<Todo> todos) throws SQLException {
+        if (todos.isEmpty()) {
+            return 0;
+        }
+        String query =
+            "UPDATE todos "
+            + "SET title = ?, description = ?, completed = ?, completed_at = ? "
+            + "WHERE id = ?";
+
+        try (PreparedStatement stmt = connection.prepareStatement(query)) {
+            for (Todo todo : todos) {
+                stmt.setString(1, todo.getTitle());
+                stmt.setString(2, todo.getDescription());
+                stmt.setBoolean(3, todo.isCompleted());
+                setCompletedAt(stmt, 4, todo);
+                stmt.setInt(5, todo.getId());
+                stmt.addBatch();
+            }
+            return countAffected(stmt.executeBatch());
+        }
+    }
+
+    private int deleteTodos(Connection connection, List<Integer> ids) throws SQLException {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        try (PreparedStatement stmt = connection.prepareStatement("DELETE FROM todos WHERE id = ?")) {
+            for (Integer id : ids) {
+                stmt.setInt(1, id);
+                stmt.addBatch();
+            }
+            return countAffected(stmt.executeBatch());
+        }
+    }
+
+    private static void setCompletedAt(PreparedStatement stmt, int index, Todo todo) throws SQLException {
+        if (todo.isCompleted() && todo.getCompletedAt() != null) {
+            stmt.setTimestamp(index, new java.sql.Timestamp(todo.getCompletedAt()));
+        } else {
+            stmt.setNull(index, java.sql.Types.TIMESTAMP);
+        }
+    }
+
+    private static int countAffected(int[] updateCounts) {
+        int total = 0;
+        for (int count : updateCounts) {
+            if (count > 0) {
+                total += count;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Streams every Todo item out of the database with COPY TO STDOUT.
+     * Each CSV row is decoded and handed to the sink as it arrives.
+     *
+     * @param sink receives each Todo item in ID order
+     * @return number of Todo items exported
+     * @throws IOException if the sink fails to write an item
+     * @throws RuntimeException if database access fails
+     */
+    public long exportTodos(TodoSink sink) throws IOException {
+        long start = System.nanoTime();
+        ClientIoTimer clientIo = new ClientIoTimer();
+        TodoSink timedSink = clientIo.wrap(sink);
+        try (Connection connection = dataSource.getConnection()) {
+            CopyOut copyOut = copyManager(connection).copyOut(COPY_OUT_QUERY);
+            long count = 0;
+            try {
+                byte[] row;
+                while ((row = copyOut.readFromCopy()) != null) {
+                    timedSink.accept(TodoCsv.parseRow(row));
+                    count++;
+                }
+            } finally {
+                if (copyOut.isActive()) {
+                    copyOut.cancelCopy();
+                }
+            }
+            logger.info("Exported {} todos", count);
+            return count;
+        } catch (SQLException e) {
+            logger.error("Failed to export todos", e);
+            throw new RuntimeException("Failed to export todos", e);
+        } finally {
+            metrics.recordOperation(StorageOperation.EXPORT, System.nanoTime() - start - clientIo.nanos());
+        }
+    }
+
+    /**
+     * Streams every Todo item out of the database as raw COPY CSV.
+     *
+     * @param out stream receiving CSV rows with all columns
+     * @return number of rows exported
+     * @throws IOException if the stream cannot be written
+     * @throws RuntimeException if database access fails
+     */
+    public long exportCsv(OutputStream out) throws IOException {
+        long start = System.nanoTime();
+        ClientIoTimer clientIo = new ClientIoTimer();
+        try (Connection connection = dataSource.getConnection()) {
+            long count = copyManager(connection).copyOut(COPY_OUT_QUERY, clientIo.wrap(out));
+            logger.info("Exported {} todos as CSV", count);
+            return count;
         } catch (SQLException e) {
-            logger.error("Failed to delete todo", e);
-            throw new RuntimeException("Failed to delete todo", e);
+            logger.error("Failed to export todos", e);
+            throw new RuntimeException("Failed to export todos", e);
+        } finally {
+            metrics.recordOperation(StorageOperation.EXPORT, System.nanoTime() - start - clientIo.nanos());
         }
     }
 
     /**
-     * Closes the database connection.
+     * Streams Todo items into the database with COPY FROM STDIN in one transaction.
+     * Rows are encoded to CSV and flushed to the server in COPY_BUFFER_SIZE chunks.
+     *
+     * @param source supplies the Todo items to import
+     * @param preserveIds whether to keep the incoming IDs instead of generating new ones
+     * @return number of Todo items imported
+     * @throws IOException if the source fails to read an item
+     * @throws RuntimeException if database access fails; nothing is imported
+     */
+    public long importTodos(TodoSource source, boolean preserveIds) throws IOException {
+        String sql = "COPY todos (" + (preserveIds ? TodoCsv.COLUMNS : TodoCsv.COLUMNS_WITHOUT_ID)
+            + ") FROM STDIN WITH (FORMAT csv)";
+
+        ClientIoTimer clientIo = new ClientIoTimer();
+        TodoSource timedSource = clientIo.wrap(source);
+        return inTransaction(clientIo, connection -> {
+            CopyIn copyIn = copyManager(connection).copyIn(sql);
+            try {
+                StringBuilder rows = new StringBuilder(COPY_BUFFER_SIZE);
+                Todo todo;
+                while ((todo = timedSource.next()) != null) {
+                    TodoCsv.appendRow(rows, todo, preserveIds);
+                    if (rows.length() >= COPY_BUFFER_SIZE) {
+                        writeToCopy(copyIn, rows);
+                    }
+                }
+                writeToCopy(copyIn, rows);
+                long count = copyIn.endCopy();
+                if (preserveIds) {
+                    resetIdSequence(connection);
+                }
+                logReset(connection);
+                logger.info("Imported {} todos", count);
+                return count;
+            } finally {
+                if (copyIn.isActive()) {
+                    copyIn.cancelCopy();
+                }
+            }
+        });
+    }
+
+    /**
+     * Streams raw COPY CSV with all columns, as produced by exportCsv, into the
+     * database in one transaction, keeping the incoming IDs.
+     *
+     * @param in stream of CSV rows
+     * @return number of rows imported
+     * @throws IOException if the stream cannot be read
+     * @throws RuntimeException if database access fails; nothing is imported
+     */
+    public long importCsv(InputStream in) throws IOException {
+        String sql = "COPY todos (" + TodoCsv.COLUMNS + ") FROM STDIN WITH (FORMAT csv)";
+
+        ClientIoTimer clientIo = new ClientIoTimer();
+        return inTransaction(clientIo, connection -> {
+            long count = copyManager(connection).copyIn(sql, clientIo.wrap(in), COPY_BUFFER_SIZE);
+            resetIdSequence(connection);
+            logReset(connection);
+            logger.info("Imported {} todos from CSV", count);
+            return count;
+        });
+    }
+
+    private long inTransaction(ClientIoTimer clientIo, CopyWork work) throws IOException {
+        long start = System.nanoTime();
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                long count = work.run(connection);
+                connection.commit();
+                return count;
+            } catch (SQLException | IOException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            logger.error("Failed to import todos", e);
+            throw new RuntimeException("Failed to import todos", e);
+        } finally {
+            dataVersion.incrementAndGet();
+            metrics.recordOperation(StorageOperation.IMPORT, System.nanoTime() - start - clientIo.nanos());
+        }
+    }
+
+    private static CopyManager copyManager(Connection connection) throws SQLException {
+        return connection.unwrap(PGConnection.class).getCopyAPI();
+    }
+
+    private static void writeToCopy(CopyIn copyIn, StringBuilder rows) throws SQLException {
+        if (rows.length() == 0) {
+            return;
+        }
+        byte[] bytes = rows.toString().getBytes(StandardCharsets.UTF_8);
+        copyIn.writeToCopy(bytes, 0, bytes.length);
+        rows.setLength(0);
+    }
+
+    private static void resetIdSequence(Connection connection) throws SQLException {
+        // Explicit IDs bypass the SERIAL default, so move the sequence past them
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("SELECT setval(pg_get_serial_sequence('todos', 'id'), "
+                + "COALESCE((SELECT MAX(id) FROM todos), 0) + 1, false)");
+        }
+    }
+
+    /**
+     * Unit of work that runs on a connection inside a transaction.
+     */
+    @FunctionalInterface
+    private interface CopyWork {
+        long run(Connection connection) throws SQLException, IOException;
+    }
+
+    /**
+     * Write that runs on a connection inside a transaction.
+     */
+    @FunctionalInterface
+    private interface WriteWork<T> {
+        T run(Connection connection) throws SQLException;
+    }
+
+    /**
+     * Closes the underlying connection pool.
      * Implementation of AutoCloseable interface.
      */
     @Override
     public void close() {
-        if (connection != null) {
+        if (dataSource instanceof AutoCloseable) {
             try {
-                connection.close();
-                logger.info("Database connection closed");
-            } catch (SQLException e) {
-                logger.error("Failed to close database connection", e);
+                ((AutoCloseable) dataSource).close();
+                logger.info("Database connection pool closed");
+            } catch (Exception e) {
+                logger.error("Failed to close database connection pool", e);
             }
         }
     }
@@ -0,0 +1,150 @@
+package com.example.todo.servlet;
+
+import com.example.todo.service.TodoMetrics;
+import java.io.IOException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import javax.servlet.AsyncContext;
+import javax.servlet.ServletConfig;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Base servlet that hands request handling to the bounded request executor
+ * (see TodoContextListener) instead of blocking a container thread.
+ * Requests the executor cannot accept are answered at once with 503 and
+ * Retry-After. Every request also has a deadline: one that waited in the
+ * queue past it is shed with 503 before its handler starts. A handler that
+ * has started always runs to completion and writes its own response, even
+ * past the deadline, since a write may already have committed and a client
+ * told to retry would repeat it. Without an executor, requests run on the
+ * container thread as usual.
+ *
+ * <p>Init parameters: deadlineMillis (default 10000) and retryAfterSeconds
+ * (default 1).
+ */
+public abstract class DispatchingServlet extends HttpServlet {
+  /** Context attribute holding the Executor requests are dispatched to. */
+  public static final String EXECUTOR_ATTRIBUTE = "todoRequestExecutor";
+  /** Context attribute holding the TodoMetrics request latencies are recorded into. */
+  public static final String METRICS_ATTRIBUTE = "todoMetrics";
+
+  private static final Logger logger = LoggerFactory.getLogger(DispatchingServlet.class);
+
+  private Executor executor;
+  private TodoMetrics metrics;
+  private long deadlineMillis;
+  private String retryAfterSeconds;
+
+  @Override
+  public void init(ServletConfig config) throws ServletException {
+    super.init(config);
+    executor = (Executor) config.getServletContext().getAttribute(EXECUTOR_ATTRIBUTE);
+    metrics = (TodoMetrics) config.getServletContext().getAttribute(METRICS_ATTRIBUTE);
+    deadlineMillis = Long.parseLong(initParameter("deadlineMillis", "10000"));
+    retryAfterSeconds = initParameter("retryAfterSeconds", "1");
+  }
+
+  /**
+   * Gets how long a request may take, from arrival to response.
+   * Subclasses override this for endpoints with a different budget.
+   *
+   * @param request the request being dispatched
+   * @return the deadline in milliseconds
+   */
+  protected long deadlineMillis(HttpServletRequest request) {
+    return deadlineMillis;
+  }
+
+  /**
+   * Reads an init parameter, falling back to a default when it is not set.
+   */
+  protected String initParameter(String name, String defaultValue) {
+    String value = getInitParameter(name);
+    return value == null || value.isEmpty() ? defaultValue : value;
+  }
+
+  @Override
+  protected void service(HttpServletRequest request, HttpServletResponse response)
+      throws ServletException, IOException {
+    long arrivalNanos = System.nanoTime();
+    if (executor == null || !request.isAsyncSupported()) {
+      try {
+        super.service(request, response);
+      } finally {
+        recordRequest(request, arrivalNanos);
+      }
+      return;
+    }
+
+    long deadlineNanos = arrivalNanos + TimeUnit.MILLISECONDS.toNanos(deadlineMillis(request));
+    AsyncContext async = request.startAsync();
+    // Deadlines are enforced before the handler starts; the container must
+    // never answer for a handler that is still running
+    async.setTimeout(0);
+    try {
+      executor.execute(() -> serviceAsync(async, arrivalNanos, deadlineNanos, request, response));
+    } catch (RejectedExecutionException e) {
+      logger.warn("Request executor saturated, rejecting {} {}", request.getMethod(), request.getRequestURI());
+      if (metrics != null) {
+        metrics.recordRejected();
+      }
+      sendUnavailable(response);
+      recordRequest(request, arrivalNanos);
+      async.complete();
+    }
+  }
+
+  private void serviceAsync(AsyncContext async, long arrivalNanos, long deadlineNanos,
+      HttpServletRequest request, HttpServletResponse response) {
+    if (System.nanoTime() - deadlineNanos >= 0) {
+      // Waited out its whole budget in the queue; shed it before doing any work
+      logger.warn("Request {} {} expired in the queue", request.getMethod(), request.getRequestURI());
+      if (metrics != null) {
+        metrics.recordExpired();
+      }
+      sendUnavailable(response);
+      recordRequest(request, arrivalNanos);
+      async.complete();
+      return;
+    }
+
+    try {
+      super.service(request, response);
+    } catch (ServletException | IOException | RuntimeException e) {
+      logger.error("Error handling {} {}", request.getMethod(), request.getRequestURI(), e);
+      if (!response.isCommitted()) {
+        response.reset();
+        response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+      }
+    } finally {
+      long overrunNanos = System.nanoTime() - deadlineNanos;
+      if (overrunNanos > 0) {
+        logger.warn("Request {} {} finished {}ms after its deadline", request.getMethod(),
+            request.getRequestURI(), TimeUnit.NANOSECONDS.toMillis(overrunNanos));
+      }
+      recordRequest(request, arrivalNanos);
+      async.complete();
+    }
+  }
+
+  private void recordRequest(HttpServletRequest request, long arrivalNanos) {
+    if (metrics != null) {
+      metrics.recordRequest(request.getMethod(), System.nanoTime() - arrivalNanos);
+    }
+  }
+
+  private void sendUnavailable(HttpServletResponse response) {
+    if (response.isCommitted()) {
+      return;
+    }
+    response.reset();
+    response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+    response.setHeader("Retry-After", retryAfterSeconds);
+  }
+}
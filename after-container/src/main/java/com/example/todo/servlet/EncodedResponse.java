@@ -0,0 +1,107 @@
+package com.example.todo.servlet;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.zip.GZIPOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * A JSON response body encoded once and served as bytes until the data
+ * version it was encoded from changes. The gzip variant is compressed on
+ * the first request that accepts it and kept alongside the plain bytes,
+ * and is served under its own entity tag since its bytes differ.
+ */
+final class EncodedResponse {
+  // Below this size gzip framing costs more than it saves
+  private static final int MIN_GZIP_BYTES = 1024;
+
+  private final long version;
+  private final String etag;
+  private final byte[] json;
+  private volatile byte[] gzip;
+
+  EncodedResponse(long version, String etag, byte[] json) {
+    this.version = version;
+    this.etag = etag;
+    this.json = json;
+  }
+
+  long getVersion() {
+    return version;
+  }
+
+  int size() {
+    return json.length;
+  }
+
+  /**
+   * Writes the body straight to the response output stream, gzip-compressed
+   * when the client accepts it.
+   *
+   * @param request the HTTP request, for its Accept-Encoding header
+   * @param response the HTTP response
+   * @throws IOException if the response cannot be written
+   */
+  void writeTo(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    byte[] body = json;
+    String tag = etag;
+    response.setContentType("application/json");
+    response.setCharacterEncoding("UTF-8");
+    if (json.length >= MIN_GZIP_BYTES) {
+      response.addHeader("Vary", "Accept-Encoding");
+      if (acceptsGzip(request.getHeader("Accept-Encoding"))) {
+        body = gzip();
+        tag = gzipTag(etag);
+        response.setHeader("Content-Encoding", "gzip");
+      }
+    }
+    response.setHeader("ETag", tag);
+    response.setContentLength(body.length);
+    response.getOutputStream().write(body);
+  }
+
+  private byte[] gzip() throws IOException {
+    byte[] compressed = gzip;
+    if (compressed == null) {
+      // Racing requests may both compress; either result is correct
+      ByteArrayOutputStream buffer = new ByteArrayOutputStream(json.length / 4 + 64);
+      try (GZIPOutputStream out = new GZIPOutputStream(buffer)) {
+        out.write(json);
+      }
+      compressed = buffer.toByteArray();
+      gzip = compressed;
+    }
+    return compressed;
+  }
+
+  /**
+   * Gets the entity tag of the gzip variant of a body tagged etag.
+   */
+  static String gzipTag(String etag) {
+    return etag.substring(0, etag.length() - 1) + "-gzip\"";
+  }
+
+  /**
+   * Checks an Accept-Encoding header for gzip, honouring an explicit q=0.
+   */
+  static boolean acceptsGzip(String acceptEncoding) {
+    if (acceptEncoding == null) {
+      return false;
+    }
+    for (String coding : acceptEncoding.split(",")) {
+      String[] parts = coding.split(";");
+      String name = parts[0].trim();
+      if (!name.equalsIgnoreCase("gzip") && !name.equals("*")) {
+        continue;
+      }
+      for (int i = 1; i < parts.length; i++) {
+        if (parts[i].trim().matches("q=0(\\.0{0,3})?")) {
+          return false;
+        }
+      }
+      return true;
+    }
+    return false;
+  }
+}
@@ -0,0 +1,129 @@
+package com.example.todo.servlet;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.function.Consumer;
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+
+/**
+ * One open Server-Sent Events response. Events are queued and written with
+ * non-blocking I/O, so sending never waits on a slow client; a client that
+ * falls more than maxPending events behind is disconnected and has to
+ * reconnect and sync.
+ */
+final class EventStream implements WriteListener, AsyncListener {
+  private final AsyncContext async;
+  private final ServletOutputStream out;
+  private final int maxPending;
+  private final Consumer<EventStream> onClose;
+  // Guarded by this
+  private final ArrayDeque<byte[]> pending = new ArrayDeque<>();
+  private boolean started;
+  private boolean closed;
+
+  EventStream(AsyncContext async, int maxPending, Consumer<EventStream> onClose) throws IOException {
+    this.async = async;
+    this.out = async.getResponse().getOutputStream();
+    this.maxPending = maxPending;
+    this.onClose = onClose;
+  }
+
+  /**
+   * Switches the response to non-blocking writes and queues the first event.
+   * The container calls onWritePossible once it can be written.
+   *
+   * @param first bytes to send as soon as the stream opens
+   */
+  synchronized void start(byte[] first) {
+    async.addListener(this);
+    pending.addFirst(first);
+    started = true;
+    out.setWriteListener(this);
+  }
+
+  /**
+   * Queues an event and writes as much as the connection takes right now.
+   *
+   * @param event the encoded event
+   */
+  synchronized void send(byte[] event) {
+    if (closed) {
+      return;
+    }
+    if (pending.size() >= maxPending) {
+      close();
+      return;
+    }
+    pending.add(event);
+    if (!started) {
+      return;
+    }
+    try {
+      drain();
+    } catch (IOException | IllegalStateException e) {
+      close();
+    }
+  }
+
+  @Override
+  public synchronized void onWritePossible() throws IOException {
+    drain();
+  }
+
+  private void drain() throws IOException {
+    // isReady registers for onWritePossible when it returns false
+    while (!closed && out.isReady()) {
+      byte[] next = pending.poll();
+      if (next == null) {
+        out.flush();
+        return;
+      }
+      out.write(next);
+    }
+  }
+
+  /**
+   * Ends the response and stops queueing events.
+   */
+  synchronized void close() {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    pending.clear();
+    try {
+      async.complete();
+    } catch (IllegalStateException e) {
+      // Already completed by the container
+    }
+    onClose.accept(this);
+  }
+
+  @Override
+  public void onError(Throwable t) {
+    close();
+  }
+
+  @Override
+  public void onComplete(AsyncEvent event) {
+    close();
+  }
+
+  @Override
+  public void onTimeout(AsyncEvent event) {
+    close();
+  }
+
+  @Override
+  public void onError(AsyncEvent event) {
+    close();
+  }
+
+  @Override
+  public void onStartAsync(AsyncEvent event) {
+  }
+}
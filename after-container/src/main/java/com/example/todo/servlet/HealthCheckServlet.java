@@ -1,6 +1,8 @@
 package com.example.todo.servlet;
 
-import com.example.todo.service.TodoStorage;
+import com.example.todo.service.HealthProber;
+import com.example.todo.service.HealthStatus;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import javax.servlet.ServletConfig;
 import javax.servlet.ServletContext;
 import javax.servlet.ServletException;
@@ -8,44 +10,77 @@
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * Servlet for handling health check requests.
- * Returns 200 OK if the application is healthy, 503 Service Unavailable otherwise.
+ * Every endpoint answers from the status cached by HealthProber and never
+ * touches the database, so it runs directly on the container thread.
+ * <ul>
+ *   <li>/health: 200 if the database is up, 503 otherwise, with pool and cache details</li>
+ *   <li>/health/live: 200 whenever the application can answer at all</li>
+ *   <li>/health/ready: 200 if the instance should take traffic, 503 with the reasons otherwise</li>
+ * </ul>
  */
 public class HealthCheckServlet extends HttpServlet {
   private static final Logger logger = LoggerFactory.getLogger(HealthCheckServlet.class);
-  private TodoStorage storage;
+  private HealthProber prober;
+  private final ObjectMapper objectMapper = new ObjectMapper();
 
   @Override
   public void init(ServletConfig config) throws ServletException {
     super.init(config);
     ServletContext context = config.getServletContext();
-    storage = (TodoStorage) context.getAttribute("todoStorage");
-    if (storage == null) {
-      throw new ServletException("TodoStorage not found in ServletContext");
+    prober = (HealthProber) context.getAttribute("healthProber");
+    if (prober == null) {
+      throw new ServletException("HealthProber not found in ServletContext");
     }
-    logger.info("HealthCheckServlet initialized with storage");
+    logger.info("HealthCheckServlet initialized with prober");
   }
 
   @Override
-  protected void doGet(HttpServletRequest request, HttpServletResponse response) 
+  protected void doGet(HttpServletRequest request, HttpServletResponse response)
       throws IOException {
-    try {
-      // Check database connectivity
-      storage.checkHealth();
-      
-      // If we get here, the application is healthy
-      response.setStatus(HttpServletResponse.SC_OK);
-      response.setContentType("application/json");
-      response.getWriter().write("{\"status\":\"UP\"}");
-    } catch (Exception e) {
-      // If there's any error, the application is not healthy
-      response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
-      response.setContentType("application/json");
-      response.getWriter().write("{\"status\":\"DOWN\",\"error\":\"" + e.getMessage() + "\"}");
+    String pathInfo = request.getPathInfo();
+    if (pathInfo == null || pathInfo.equals("/")) {
+      HealthStatus status = prober.getStatus();
+      Map<String, Object> body = new LinkedHashMap<>();
+      body.put("status", status.isDatabaseUp() ? "UP" : "DOWN");
+      body.put("databaseLatencyMillis", status.getDatabaseLatencyMillis());
+      body.put("checkedAt", status.getCheckedAt());
+      if (status.getPool() != null) {
+        body.put("pool", status.getPool());
+      }
+      if (status.getCache() != null) {
+        body.put("cache", status.getCache());
+      }
+      writeStatus(response, status.isDatabaseUp(), body);
+    } else if (pathInfo.equals("/live")) {
+      Map<String, Object> body = new LinkedHashMap<>();
+      body.put("status", "UP");
+      writeStatus(response, true, body);
+    } else if (pathInfo.equals("/ready")) {
+      HealthStatus status = prober.getStatus();
+      Map<String, Object> body = new LinkedHashMap<>();
+      body.put("status", status.isReady() ? "UP" : "DOWN");
+      body.put("checkedAt", status.getCheckedAt());
+      if (!status.isReady()) {
+        body.put("reasons", status.getNotReadyReasons());
+      }
+      writeStatus(response, status.isReady(), body);
+    } else {
+      response.setStatus(HttpServletResponse.SC_NOT_FOUND);
     }
   }
-} 
\ No newline at end of file
+
+  private void writeStatus(HttpServletResponse response, boolean up, Map<String, Object> body)
+      throws IOException {
+    response.setStatus(up ? HttpServletResponse.SC_OK : HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+    response.setHeader("Cache-Control", "no-store");
+    response.setContentType("application/json");
+    objectMapper.writeValue(response.getWriter(), body);
+  }
+}
@@ -0,0 +1,65 @@
+package com.example.todo.servlet;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Request body stream that fails once more than a fixed number of bytes has
+ * been read, for bodies sent without a Content-Length or with a wrong one.
+ */
+final class LimitedInputStream extends FilterInputStream {
+  private final long limit;
+  private long count;
+
+  LimitedInputStream(InputStream in, long limit) {
+    super(in);
+    this.limit = limit;
+  }
+
+  @Override
+  public int read() throws IOException {
+    int b = super.read();
+    if (b >= 0) {
+      advance(1);
+    }
+    return b;
+  }
+
+  @Override
+  public int read(byte[] buffer, int offset, int length) throws IOException {
+    int n = super.read(buffer, offset, length);
+    if (n > 0) {
+      advance(n);
+    }
+    return n;
+  }
+
+  @Override
+  public long skip(long n) throws IOException {
+    long skipped = super.skip(n);
+    advance(skipped);
+    return skipped;
+  }
+
+  @Override
+  public boolean markSupported() {
+    return false;
+  }
+
+  private void advance(long n) throws TooLargeException {
+    count += n;
+    if (count > limit) {
+      throw new TooLargeException("Request body exceeds " + limit + " bytes");
+    }
+  }
+
+  /**
+   * Thrown when the body runs past the limit.
+   */
+  static final class TooLargeException extends IOException {
+    TooLargeException(String message) {
+      super(message);
+    }
+  }
+}
@@ -0,0 +1,158 @@
+package com.example.todo.servlet;
+
+import com.example.todo.service.CachingTodoStorage;
+import com.example.todo.service.PoolStats;
+import com.example.todo.service.TodoCacheStats;
+import com.example.todo.service.TodoMetrics;
+import com.example.todo.service.TodoStorage;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.util.Map;
+import javax.servlet.ServletConfig;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Servlet exposing metrics in the Prometheus text format: request and
+ * storage latency histograms from TodoMetrics, connection pool and cache
+ * statistics, and JVM GC, allocation and heap figures. Everything is read
+ * at scrape time; nothing here runs on the request path.
+ */
+public class MetricsServlet extends HttpServlet {
+  private static final Logger logger = LoggerFactory.getLogger(MetricsServlet.class);
+  private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+  private TodoStorage storage;
+  private TodoMetrics metrics;
+
+  @Override
+  public void init(ServletConfig config) throws ServletException {
+    super.init(config);
+    ServletContext context = config.getServletContext();
+    storage = (TodoStorage) context.getAttribute("todoStorage");
+    metrics = (TodoMetrics) context.getAttribute(DispatchingServlet.METRICS_ATTRIBUTE);
+    if (storage == null || metrics == null) {
+      throw new ServletException("TodoStorage or TodoMetrics not found in ServletContext");
+    }
+    logger.info("MetricsServlet initialized");
+  }
+
+  @Override
+  protected void doGet(HttpServletRequest request, HttpServletResponse response)
+      throws IOException {
+    StringBuilder out = new StringBuilder(16 * 1024);
+    metrics.appendTo(out);
+    appendPool(out, storage.getPoolStats());
+    if (storage instanceof CachingTodoStorage) {
+      appendCache(out, ((CachingTodoStorage) storage).getCacheStats());
+    }
+    appendJvm(out);
+
+    response.setContentType(CONTENT_TYPE);
+    response.setHeader("Cache-Control", "no-store");
+    Writer writer = response.getWriter();
+    writer.append(out);
+    writer.flush();
+  }
+
+  private static void appendPool(StringBuilder out, PoolStats pool) {
+    if (pool == null) {
+      return;
+    }
+    header(out, "todo_db_pool_connections", "gauge", "JDBC pool connections by state.");
+    sample(out, "todo_db_pool_connections{state=\"active\"}", pool.getActiveConnections());
+    sample(out, "todo_db_pool_connections{state=\"idle\"}", pool.getIdleConnections());
+    sample(out, "todo_db_pool_connections{state=\"total\"}", pool.getTotalConnections());
+    header(out, "todo_db_pool_max_connections", "gauge", "Configured maximum JDBC pool size.");
+    sample(out, "todo_db_pool_max_connections", pool.getMaximumPoolSize());
+    header(out, "todo_db_pool_threads_awaiting", "gauge", "Threads blocked waiting for a JDBC connection.");
+    sample(out, "todo_db_pool_threads_awaiting", pool.getThreadsAwaitingConnection());
+  }
+
+  private static void appendCache(StringBuilder out, Map<String, TodoCacheStats> caches) {
+    header(out, "todo_cache_hits_total", "counter", "Cache lookups served from the cache.");
+    for (Map.Entry<String, TodoCacheStats> cache : caches.entrySet()) {
+      sample(out, "todo_cache_hits_total{cache=\"" + cache.getKey() + "\"}", cache.getValue().getHitCount());
+    }
+    header(out, "todo_cache_misses_total", "counter", "Cache lookups that fell through to the database.");
+    for (Map.Entry<String, TodoCacheStats> cache : caches.entrySet()) {
+      sample(out, "todo_cache_misses_total{cache=\"" + cache.getKey() + "\"}", cache.getValue().getMissCount());
+    }
+    header(out, "todo_cache_evictions_total", "counter", "Entries evicted by size or TTL.");
+    for (Map.Entry<String, TodoCacheStats> cache : caches.entrySet()) {
+      sample(out, "todo_cache_evictions_total{cache=\"" + cache.getKey() + "\"}",
+          cache.getValue().getEvictionCount());
+    }
+    header(out, "todo_cache_hit_ratio", "gauge", "Hits divided by lookups since startup.");
+    for (Map.Entry<String, TodoCacheStats> cache : caches.entrySet()) {
+      sample(out, "todo_cache_hit_ratio{cache=\"" + cache.getKey() + "\"}", cache.getValue().getHitRatio());
+    }
+    header(out, "todo_cache_size", "gauge", "Approximate number of cached entries.");
+    for (Map.Entry<String, TodoCacheStats> cache : caches.entrySet()) {
+      sample(out, "todo_cache_size{cache=\"" + cache.getKey() + "\"}", cache.getValue().getSize());
+    }
+  }
+
+  private static void appendJvm(StringBuilder out) {
+    header(out, "jvm_gc_collections_total", "counter", "Garbage collections by collector.");
+    for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+      sample(out, "jvm_gc_collections_total{gc=\"" + gc.getName() + "\"}", gc.getCollectionCount());
+    }
+    header(out, "jvm_gc_collection_seconds_total", "counter", "Time spent in garbage collection by collector.");
+    for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+      sample(out, "jvm_gc_collection_seconds_total{gc=\"" + gc.getName() + "\"}", gc.getCollectionTime() / 1000.0);
+    }
+
+    ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    long allocatedBytes = totalAllocatedBytes(threads);
+    if (allocatedBytes >= 0) {
+      header(out, "jvm_allocated_bytes_total", "counter",
+          "Heap bytes allocated since startup; take rate() for the allocation rate.");
+      sample(out, "jvm_allocated_bytes_total", allocatedBytes);
+    }
+
+    MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+    header(out, "jvm_memory_used_bytes", "gauge", "Used memory by area.");
+    sample(out, "jvm_memory_used_bytes{area=\"heap\"}", memory.getHeapMemoryUsage().getUsed());
+    sample(out, "jvm_memory_used_bytes{area=\"nonheap\"}", memory.getNonHeapMemoryUsage().getUsed());
+    header(out, "jvm_threads_live", "gauge", "Live platform threads.");
+    sample(out, "jvm_threads_live", threads.getThreadCount());
+  }
+
+  /**
+   * Reads the JVM-wide allocation counter, which includes terminated threads.
+   *
+   * @return bytes allocated since startup, or -1 if the runtime cannot tell
+   */
+  private static long totalAllocatedBytes(ThreadMXBean threads) {
+    if (!(threads instanceof com.sun.management.ThreadMXBean)) {
+      return -1;
+    }
+    try {
+      return ((com.sun.management.ThreadMXBean) threads).getTotalThreadAllocatedBytes();
+    } catch (UnsupportedOperationException e) {
+      return -1;
+    }
+  }
+
+  private static void header(StringBuilder out, String name, String type, String help) {
+    out.append("# HELP ").append(name).append(' ').append(help).append('\n')
+        .append("# TYPE ").append(name).append(' ').append(type).append('\n');
+  }
+
+  private static void sample(StringBuilder out, String series, long value) {
+    out.append(series).append(' ').append(value).append('\n');
+  }
+
+  private static void sample(StringBuilder out, String series, double value) {
+    out.append(series).append(' ').append(value).append('\n');
+  }
+}
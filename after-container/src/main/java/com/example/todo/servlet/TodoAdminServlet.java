@@ -0,0 +1,111 @@
+package com.example.todo.servlet;
+
+import java.io.IOException;
+import javax.servlet.ServletConfig;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import com.example.todo.model.Todo;
+import com.example.todo.service.TodoStorage;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Servlet for bulk moving whole todo datasets between environments.
+ * GET /export and POST /import stream through PostgreSQL COPY, as a JSON
+ * array by default or as raw CSV with format=csv.
+ */
+public class TodoAdminServlet extends HttpServlet {
+  private static final Logger logger = LoggerFactory.getLogger(TodoAdminServlet.class);
+  private TodoStorage storage;
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  @Override
+  public void init(ServletConfig config) throws ServletException {
+    super.init(config);
+    ServletContext context = config.getServletContext();
+    storage = (TodoStorage) context.getAttribute("todoStorage");
+    if (storage == null) {
+      throw new ServletException("TodoStorage not found in ServletContext");
+    }
+    logger.info("TodoAdminServlet initialized with storage");
+  }
+
+  @Override
+  protected void doGet(HttpServletRequest request, HttpServletResponse response)
+      throws IOException {
+    if (!"/export".equals(request.getPathInfo())) {
+      response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+      return;
+    }
+
+    if (isCsv(request)) {
+      response.setContentType("text/csv");
+      response.setCharacterEncoding("UTF-8");
+      storage.exportCsv(response.getOutputStream());
+      return;
+    }
+
+    response.setContentType("application/json");
+    response.setCharacterEncoding("UTF-8");
+    try (JsonGenerator generator = objectMapper.getFactory().createGenerator(response.getOutputStream())) {
+      generator.writeStartArray();
+      storage.exportTodos(generator::writeObject);
+      generator.writeEndArray();
+    }
+  }
+
+  @Override
+  protected void doPost(HttpServletRequest request, HttpServletResponse response)
+      throws IOException {
+    if (!"/import".equals(request.getPathInfo())) {
+      response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+      return;
+    }
+
+    long imported;
+    if (isCsv(request)) {
+      imported = storage.importCsv(request.getInputStream());
+    } else {
+      boolean preserveIds = Boolean.parseBoolean(request.getParameter("preserveIds"));
+      try (JsonParser parser = objectMapper.getFactory().createParser(request.getInputStream())) {
+        if (parser.nextToken() != JsonToken.START_ARRAY) {
+          response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Expected a JSON array of todos");
+          return;
+        }
+        try {
+          imported = storage.importTodos(() -> {
+            JsonToken token = parser.nextToken();
+            if (token == JsonToken.END_ARRAY) {
+              return null;
+            }
+            if (token != JsonToken.START_OBJECT) {
+              throw new JsonParseException(parser, "Expected a todo object but found " + token);
+            }
+            return objectMapper.readValue(parser, Todo.class);
+          }, preserveIds);
+        } catch (JsonProcessingException e) {
+          // The import was rolled back; nothing was written
+          logger.warn("Rejected todo import: {}", e.getOriginalMessage());
+          response.sendError(HttpServletResponse.SC_BAD_REQUEST, e.getOriginalMessage());
+          return;
+        }
+      }
+    }
+
+    response.setContentType("application/json");
+    response.getWriter().write("{\"imported\":" + imported + "}");
+  }
+
+  private boolean isCsv(HttpServletRequest request) {
+    return "csv".equalsIgnoreCase(request.getParameter("format"));
+  }
+}
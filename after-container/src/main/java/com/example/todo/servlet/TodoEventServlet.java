@@ -0,0 +1,121 @@
+package com.example.todo.servlet;
+
+import com.example.todo.service.TodoChange;
+import com.example.todo.service.TodoChangeFeed;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import javax.servlet.AsyncContext;
+import javax.servlet.ServletConfig;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Pushes todo changes to browsers as Server-Sent Events, one event per
+ * committed write from any instance: "created", "updated" or "deleted" with
+ * data {"ids":[...]}, or "reset" when changes may have been missed. Events
+ * carry IDs only; clients fetch what changed from /api/todos/changes.
+ * Streams stay open on the container without holding a thread, and a
+ * comment line is sent periodically so idle connections are not dropped.
+ *
+ * <p>Init parameters: maxConnections (default 1000), heartbeatSeconds
+ * (default 20) and maxPendingEvents (default 256).
+ */
+public class TodoEventServlet extends HttpServlet {
+  private static final Logger logger = LoggerFactory.getLogger(TodoEventServlet.class);
+  // Sent first, so the browser sees the stream open, and sets the reconnect delay
+  private static final byte[] OPEN = "retry: 3000\n\n".getBytes(StandardCharsets.UTF_8);
+  private static final byte[] HEARTBEAT = ":\n\n".getBytes(StandardCharsets.UTF_8);
+
+  private final Set<EventStream> streams = ConcurrentHashMap.newKeySet();
+  private final Consumer<TodoChange> subscriber = this::broadcast;
+  private TodoChangeFeed feed;
+  private ScheduledExecutorService heartbeat;
+  private int maxConnections;
+  private int maxPendingEvents;
+
+  @Override
+  public void init(ServletConfig config) throws ServletException {
+    super.init(config);
+    feed = (TodoChangeFeed) config.getServletContext().getAttribute("todoChangeFeed");
+    if (feed == null) {
+      throw new ServletException("TodoChangeFeed not found in ServletContext");
+    }
+    maxConnections = Integer.parseInt(initParameter("maxConnections", "1000"));
+    maxPendingEvents = Integer.parseInt(initParameter("maxPendingEvents", "256"));
+    long heartbeatSeconds = Long.parseLong(initParameter("heartbeatSeconds", "20"));
+
+    heartbeat = Executors.newSingleThreadScheduledExecutor(task -> {
+      Thread thread = new Thread(task, "todo-event-heartbeat");
+      thread.setDaemon(true);
+      return thread;
+    });
+    heartbeat.scheduleWithFixedDelay(() -> send(HEARTBEAT), heartbeatSeconds, heartbeatSeconds, TimeUnit.SECONDS);
+    feed.subscribe(subscriber);
+    logger.info("TodoEventServlet initialized: maxConnections={}, heartbeat={}s", maxConnections, heartbeatSeconds);
+  }
+
+  private String initParameter(String name, String defaultValue) {
+    String value = getInitParameter(name);
+    return value == null || value.isEmpty() ? defaultValue : value;
+  }
+
+  @Override
+  protected void doGet(HttpServletRequest request, HttpServletResponse response)
+      throws IOException {
+    if (streams.size() >= maxConnections) {
+      logger.warn("Rejecting event stream, {} already open", streams.size());
+      response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+      return;
+    }
+    response.setContentType("text/event-stream");
+    response.setCharacterEncoding("UTF-8");
+    response.setHeader("Cache-Control", "no-store");
+
+    AsyncContext async = request.startAsync();
+    // Heartbeats find dead clients; the stream itself never times out
+    async.setTimeout(0);
+    EventStream stream = new EventStream(async, maxPendingEvents, streams::remove);
+    streams.add(stream);
+    stream.start(OPEN);
+  }
+
+  private void broadcast(TodoChange change) {
+    StringBuilder event = new StringBuilder(32 + 8 * change.getIds().size())
+        .append("event: ").append(change.getType().getLabel())
+        .append("\ndata: {\"ids\":[");
+    for (int i = 0; i < change.getIds().size(); i++) {
+      if (i > 0) {
+        event.append(',');
+      }
+      event.append(change.getIds().get(i));
+    }
+    event.append("]}\n\n");
+    send(event.toString().getBytes(StandardCharsets.UTF_8));
+  }
+
+  private void send(byte[] event) {
+    for (EventStream stream : streams) {
+      stream.send(event);
+    }
+  }
+
+  @Override
+  public void destroy() {
+    feed.unsubscribe(subscriber);
+    heartbeat.shutdownNow();
+    for (EventStream stream : streams) {
+      stream.close();
+    }
+    super.destroy();
+  }
+}
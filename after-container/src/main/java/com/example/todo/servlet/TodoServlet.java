@@ -1,26 +1,45 @@
 package com.example.todo.servlet;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.util.List;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
 import javax.servlet.ServletConfig;
 import javax.servlet.ServletContext;
 import javax.servlet.ServletException;
-import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import com.example.todo.model.Todo;
+import com.example.todo.model.TodoBatch;
+import com.example.todo.model.TodoBatchResult;
+import com.example.todo.model.TodoChanges;
+import com.example.todo.service.CachingTodoStorage;
+import com.example.todo.service.TodoCursor;
+import com.example.todo.service.TodoQuery;
 import com.example.todo.service.TodoStorage;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * Servlet for handling Todo CRUD operations.
  */
-public class TodoServlet extends HttpServlet {
+public class TodoServlet extends DispatchingServlet {
   private static final Logger logger = LoggerFactory.getLogger(TodoServlet.class);
+  private static final int MAX_BATCH_SIZE = 100000;
   private TodoStorage storage;
+  private long batchDeadlineMillis;
+  private long maxBatchBytes;
   private final ObjectMapper objectMapper = new ObjectMapper();
+  // Encoded list pages by query; only kept when lists are cached
+  private Cache<TodoQuery, EncodedResponse> encodedPages;
+  // Starts every ETag, so tags from before a restart or from another instance never match
+  private final String etagPrefix =
+      "\"" + Long.toString(ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE, 36) + "-";
 
   @Override
   public void init(ServletConfig config) throws ServletException {
@@ -30,20 +49,231 @@ public void init(ServletConfig config) throws ServletException {
     if (storage == null) {
       throw new ServletException("TodoStorage not found in ServletContext");
     }
+    batchDeadlineMillis = Long.parseLong(initParameter("batchDeadlineMillis", "60000"));
+    maxBatchBytes = Long.parseLong(initParameter("maxBatchBytes", "33554432"));
+    long responseCacheBytes = Long.parseLong(initParameter("responseCacheBytes", "16777216"));
+    if (storage instanceof CachingTodoStorage && responseCacheBytes > 0) {
+      encodedPages = Caffeine.newBuilder()
+          .maximumWeight(responseCacheBytes)
+          .weigher((TodoQuery query, EncodedResponse page) -> page.size())
+          .expireAfterWrite(Duration.ofSeconds(Long.parseLong(initParameter("responseCacheTtlSeconds", "60"))))
+          .build();
+    }
     logger.info("TodoServlet initialized with storage");
   }
 
+  /**
+   * Batches get their own, longer deadline; everything else uses the servlet default.
+   */
+  @Override
+  protected long deadlineMillis(HttpServletRequest request) {
+    if ("POST".equals(request.getMethod()) && "/batch".equals(request.getPathInfo())) {
+      return batchDeadlineMillis;
+    }
+    return super.deadlineMillis(request);
+  }
+
+  /**
+   * Returns the changes since a sync token for /api/todos/changes, a single
+   * todo for /api/todos/{id}, otherwise one page of todos, newest first.
+   * Supports the query parameters limit, completed, since (epoch millis) and
+   * cursor (the nextCursor of a previous page). Rows are streamed from the
+   * database straight into the response as {"items":[...],"nextCursor":...}.
+   * With the caching storage, each page is encoded once per data version and
+   * later requests are answered with those bytes, gzip-compressed if accepted.
+   * Pages carry a strong ETag derived from the data version, and a request
+   * whose If-None-Match still matches gets 304 without reading anything.
+   */
   @Override
   protected void doGet(HttpServletRequest request, HttpServletResponse response)
       throws IOException {
-    List<Todo> todos = storage.getAllTodos();
+    String pathInfo = request.getPathInfo();
+    if ("/changes".equals(pathInfo)) {
+      getChanges(request, response);
+      return;
+    }
+    if (pathInfo != null && !pathInfo.equals("/")) {
+      getTodo(pathInfo.substring(1), response);
+      return;
+    }
+
+    TodoQuery query;
+    try {
+      query = parseQuery(request);
+    } catch (IllegalArgumentException e) {
+      logger.warn("Invalid todo query: {}", e.getMessage());
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+      return;
+    }
+
+    // Read before the page, which is then at least as new as the tag says
+    long version = storage.getDataVersion();
+    String etag = etagPrefix + version + '"';
+    response.setHeader("Cache-Control", "no-cache");
+    String matched = matchingTag(request.getHeader("If-None-Match"), etag);
+    if (matched != null) {
+      if (encodedPages != null) {
+        response.addHeader("Vary", "Accept-Encoding");
+      }
+      response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+      response.setHeader("ETag", matched);
+      return;
+    }
+
+    if (encodedPages != null) {
+      // Hits write the page bytes encoded for the current data version as they are
+      EncodedResponse page = encodedPages.getIfPresent(query);
+      if (page == null || page.getVersion() != version) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(8192);
+        writePage(query, buffer);
+        page = new EncodedResponse(version, etag, buffer.toByteArray());
+        encodedPages.put(query, page);
+      }
+      page.writeTo(request, response);
+      return;
+    }
+
+    response.setHeader("ETag", etag);
     response.setContentType("application/json");
-    objectMapper.writeValue(response.getWriter(), todos);
+    response.setCharacterEncoding("UTF-8");
+    writePage(query, response.getOutputStream());
+  }
+
+  /**
+   * Finds the tag in an If-None-Match header that matches the current
+   * version, either as sent plain or gzip-compressed.
+   *
+   * @return the matching tag, or null if the client's copy is out of date
+   */
+  private static String matchingTag(String ifNoneMatch, String etag) {
+    if (ifNoneMatch == null) {
+      return null;
+    }
+    String gzipTag = EncodedResponse.gzipTag(etag);
+    for (String candidate : ifNoneMatch.split(",")) {
+      String tag = candidate.trim();
+      if (tag.startsWith("W/")) {
+        // Weak comparison, as If-None-Match requires
+        tag = tag.substring(2);
+      }
+      if (tag.equals(etag) || tag.equals(gzipTag)) {
+        return tag;
+      }
+      if (tag.equals("*")) {
+        return etag;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Streams one page as {"items":[...],"nextCursor":...}.
+   */
+  private void writePage(TodoQuery query, OutputStream out) throws IOException {
+    try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+      generator.writeStartObject();
+      generator.writeArrayFieldStart("items");
+      TodoCursor next = storage.streamTodos(query, generator::writeObject);
+      generator.writeEndArray();
+      if (next == null) {
+        generator.writeNullField("nextCursor");
+      } else {
+        generator.writeStringField("nextCursor", next.encode());
+      }
+      generator.writeEndObject();
+    }
+  }
+
+  /**
+   * Returns the todos changed since the since token, as
+   * {"updated":[...],"deleted":[ids],"nextToken":...,"hasMore":...,"reset":...}.
+   * Without a token, or when the token is too old, reset is true and the
+   * client reloads the full list before syncing from nextToken.
+   */
+  private void getChanges(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    TodoChanges changes;
+    try {
+      int limit = TodoQuery.MAX_LIMIT;
+      String limitParam = request.getParameter("limit");
+      if (limitParam != null) {
+        try {
+          limit = Math.max(1, Math.min(Integer.parseInt(limitParam), TodoQuery.MAX_LIMIT));
+        } catch (NumberFormatException e) {
+          throw new IllegalArgumentException("limit must be an integer");
+        }
+      }
+      changes = storage.getChanges(request.getParameter("since"), limit);
+    } catch (IllegalArgumentException e) {
+      logger.warn("Invalid changes request: {}", e.getMessage());
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+      return;
+    }
+    response.setHeader("Cache-Control", "no-store");
+    response.setContentType("application/json");
+    response.setCharacterEncoding("UTF-8");
+    objectMapper.writeValue(response.getOutputStream(), changes);
+  }
+
+  private void getTodo(String todoId, HttpServletResponse response) throws IOException {
+    int id;
+    try {
+      id = Integer.parseInt(todoId);
+    } catch (NumberFormatException e) {
+      logger.warn("Invalid ID format: {}", todoId);
+      response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+      return;
+    }
+    Todo todo = storage.getTodo(id);
+    if (todo == null) {
+      response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+      return;
+    }
+    response.setContentType("application/json");
+    objectMapper.writeValue(response.getWriter(), todo);
+  }
+
+  private TodoQuery parseQuery(HttpServletRequest request) {
+    int limit = TodoQuery.DEFAULT_LIMIT;
+    String limitParam = request.getParameter("limit");
+    if (limitParam != null) {
+      try {
+        limit = Integer.parseInt(limitParam);
+      } catch (NumberFormatException e) {
+        throw new IllegalArgumentException("limit must be an integer");
+      }
+    }
+
+    Boolean completed = null;
+    String completedParam = request.getParameter("completed");
+    if (completedParam != null) {
+      if (!completedParam.equals("true") && !completedParam.equals("false")) {
+        throw new IllegalArgumentException("completed must be true or false");
+      }
+      completed = Boolean.valueOf(completedParam);
+    }
+
+    Long since = null;
+    String sinceParam = request.getParameter("since");
+    if (sinceParam != null) {
+      try {
+        since = Long.parseLong(sinceParam);
+      } catch (NumberFormatException e) {
+        throw new IllegalArgumentException("since must be epoch milliseconds");
+      }
+    }
+
+    String cursorParam = request.getParameter("cursor");
+    TodoCursor cursor = cursorParam == null || cursorParam.isEmpty() ? null : TodoCursor.decode(cursorParam);
+    return new TodoQuery(limit, completed, since, cursor);
   }
 
   @Override
   protected void doPost(HttpServletRequest request, HttpServletResponse response)
       throws IOException {
+    if ("/batch".equals(request.getPathInfo())) {
+      doBatch(request, response);
+      return;
+    }
     Todo todo = objectMapper.readValue(request.getReader(), Todo.class);
     Todo createdTodo = storage.createTodo(todo);
     response.setContentType("application/json");
@@ -51,6 +281,61 @@ protected void doPost(HttpServletRequest request, HttpServletResponse response)
     objectMapper.writeValue(response.getWriter(), createdTodo);
   }
 
+  /**
+   * Applies {"create":[...],"update":[...],"delete":[ids]} in one transaction
+   * and returns the generated IDs plus updated and deleted row counts.
+   * Bodies over maxBatchBytes are rejected before or while they are read,
+   * so an oversized batch is never deserialized in full.
+   */
+  private void doBatch(HttpServletRequest request, HttpServletResponse response)
+      throws IOException {
+    if (request.getContentLengthLong() > maxBatchBytes) {
+      response.sendError(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE,
+          "Batch body exceeds " + maxBatchBytes + " bytes");
+      return;
+    }
+    TodoBatch batch;
+    try {
+      batch = objectMapper.readValue(new LimitedInputStream(request.getInputStream(), maxBatchBytes),
+          TodoBatch.class);
+    } catch (LimitedInputStream.TooLargeException e) {
+      response.sendError(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE, e.getMessage());
+      return;
+    }
+    if (batch.size() > MAX_BATCH_SIZE) {
+      response.sendError(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE,
+          "Batch exceeds " + MAX_BATCH_SIZE + " operations");
+      return;
+    }
+    String invalid = validateBatch(batch);
+    if (invalid != null) {
+      logger.warn("Rejected todo batch: {}", invalid);
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST, invalid);
+      return;
+    }
+
+    TodoBatchResult result = storage.executeBatch(batch);
+    response.setContentType("application/json");
+    objectMapper.writeValue(response.getWriter(), result);
+  }
+
+  private String validateBatch(TodoBatch batch) {
+    for (Todo todo : batch.getCreate()) {
+      if (todo == null || todo.getTitle() == null) {
+        return "Every created todo needs a title";
+      }
+    }
+    for (Todo todo : batch.getUpdate()) {
+      if (todo == null || todo.getId() == null || todo.getTitle() == null) {
+        return "Every updated todo needs an id and a title";
+      }
+    }
+    if (batch.getDelete().contains(null)) {
+      return "Deleted ids must not be null";
+    }
+    return null;
+  }
+
   @Override
   protected void doPut(HttpServletRequest request, HttpServletResponse response)
       throws IOException {
@@ -261,14 +261,56 @@
             });
         }
 
-        function loadTodos() {
-            fetch('/todo/api/todos')
+        function fetchTodoPages(cursor, todos) {
+            const url = '/todo/api/todos?limit=1000' + (cursor ? '&cursor=' + encodeURIComponent(cursor) : '');
+            return fetch(url)
                 .then(response => response.json())
+                .then(page => {
+                    const all = todos.concat(page.items);
+                    return page.nextCursor ? fetchTodoPages(page.nextCursor, all) : all;
+                });
+        }
+
+        function loadTodos() {
+            return fetchTodoPages(null, [])
                 .then(todos => {
                     currentTodos = todos;
                     displayTodos(todos);
+                });
+        }
+
+        let syncToken = null;
+        let syncing = false;
+        let syncPending = false;
+
+        // Applies only what changed since the last sync; a reset reloads the whole list
+        function syncTodos() {
+            if (syncing) {
+                syncPending = true;
+                return;
+            }
+            syncing = true;
+            const url = '/todo/api/todos/changes' + (syncToken === null ? '' : '?since=' + encodeURIComponent(syncToken));
+            fetch(url)
+                .then(response => response.json())
+                .then(changes => {
+                    if (changes.reset) {
+                        return loadTodos().then(() => { syncToken = changes.nextToken; });
+                    }
+                    const replaced = new Set(changes.deleted.concat(changes.updated.map(todo => todo.id)));
+                    currentTodos = currentTodos.filter(todo => !replaced.has(todo.id)).concat(changes.updated);
+                    syncToken = changes.nextToken;
+                    syncPending = syncPending || changes.hasMore;
+                    displayTodos(currentTodos);
                 })
-                .catch(error => console.error('Error loading todos:', error));
+                .catch(error => console.error('Error syncing todos:', error))
+                .finally(() => {
+                    syncing = false;
+                    if (syncPending) {
+                        syncPending = false;
+                        syncTodos();
+                    }
+                });
         }
 
         function escapeHtml(unsafe) {
@@ -302,7 +344,7 @@
                 if (response.ok) {
                     document.getElementById('todo-title').value = '';
                     document.getElementById('todo-description').value = '';
-                    loadTodos();
+                    syncTodos();
                 }
             })
             .catch(error => console.error('Error adding todo:', error));
@@ -323,7 +365,7 @@
             })
             .then(response => {
                 if (response.ok) {
-                    loadTodos();
+                    syncTodos();
                 }
             })
             .catch(error => console.error('Error updating todo:', error));
@@ -335,14 +377,20 @@
             })
             .then(response => {
                 if (response.ok) {
-                    loadTodos();
+                    syncTodos();
                 }
             })
             .catch(error => console.error('Error deleting todo:', error));
         }
 
-        // Load todos when page loads
-        loadTodos();
+        // Load todos when page loads, then sync whenever any tab or instance changes them
+        syncTodos();
+        if (window.EventSource) {
+            const events = new EventSource('/todo/api/todos/events');
+            ['created', 'updated', 'deleted', 'reset'].forEach(type => events.addEventListener(type, syncTodos));
+            // Catch up on anything missed while the stream was down
+            events.onopen = syncTodos;
+        }
     </script>
 </body>
 </html> 
\ No newline at end of file
@@ -0,0 +1,213 @@
+package com.example.todo.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import com.example.todo.model.Todo;
+
+/**
+ * Compact hand-written cache value codec for todos and todo lists.
+ *
+ * <p>A value starts with a tag byte (TODO or LIST; a list is followed by a
+ * varint count). Each todo is a presence/completed flags byte followed by the
+ * present fields: id and createdAt as zigzag varints, title and description
+ * as a varint length and UTF-8 bytes, completedAt as a zigzag varint. Within
+ * a list, id and createdAt are stored as deltas from the previous todo, which
+ * keeps them to one or two bytes for lists ordered by ID.
+ */
+public final class BinaryTodoCodec implements CacheValueCodec {
+    public static final BinaryTodoCodec INSTANCE = new BinaryTodoCodec();
+
+    private static final byte TODO = 1;
+    private static final byte LIST = 2;
+
+    private static final int HAS_ID = 1;
+    private static final int HAS_TITLE = 1 << 1;
+    private static final int HAS_DESCRIPTION = 1 << 2;
+    private static final int HAS_CREATED_AT = 1 << 3;
+    private static final int HAS_COMPLETED_AT = 1 << 4;
+    private static final int COMPLETED = 1 << 5;
+
+    private BinaryTodoCodec() {
+    }
+
+    @Override
+    public String name() {
+        return "binary";
+    }
+
+    @Override
+    public byte[] encode(Object value) {
+        Writer out = new Writer();
+        if (value instanceof Todo) {
+            out.writeByte(TODO);
+            writeTodo(out, (Todo) value, new long[2]);
+        } else if (value instanceof List) {
+            List<?> todos = (List<?>) value;
+            out.writeByte(LIST);
+            out.writeVarLong(todos.size());
+            long[] previous = new long[2];
+            for (Object todo : todos) {
+                writeTodo(out, (Todo) todo, previous);
+            }
+        } else {
+            throw new IllegalArgumentException("Cannot encode cache value of type "
+                + (value == null ? "null" : value.getClass().getName()));
+        }
+        return out.toByteArray();
+    }
+
+    @Override
+    public Object decode(byte[] bytes) {
+        Reader in = new Reader(bytes);
+        byte tag = in.readByte();
+        if (tag == TODO) {
+            return readTodo(in, new long[2]);
+        }
+        if (tag != LIST) {
+            throw new IllegalArgumentException("Unknown cache value tag: " + tag);
+        }
+        int size = (int) in.readVarLong();
+        List<Todo> todos = new ArrayList<>(size);
+        long[] previous = new long[2];
+        for (int i = 0; i < size; i++) {
+            todos.add(readTodo(in, previous));
+        }
+        return todos;
+    }
+
+    /**
+     * Writes one todo; previous holds the last id and createdAt for delta encoding.
+     */
+    private static void writeTodo(Writer out, Todo todo, long[] previous) {
+        int flags = (todo.getId() != null ? HAS_ID : 0)
+            | (todo.getTitle() != null ? HAS_TITLE : 0)
+            | (todo.getDescription() != null ? HAS_DESCRIPTION : 0)
+            | (todo.getCreatedAt() != null ? HAS_CREATED_AT : 0)
+            | (todo.getCompletedAt() != null ? HAS_COMPLETED_AT : 0)
+            | (todo.isCompleted() ? COMPLETED : 0);
+        out.writeByte(flags);
+        if (todo.getId() != null) {
+            out.writeZigZag(todo.getId() - previous[0]);
+            previous[0] = todo.getId();
+        }
+        if (todo.getTitle() != null) {
+            out.writeString(todo.getTitle());
+        }
+        if (todo.getDescription() != null) {
+            out.writeString(todo.getDescription());
+        }
+        if (todo.getCreatedAt() != null) {
+            long createdAt = todo.getCreatedAt().getTime();
+            out.writeZigZag(createdAt - previous[1]);
+            previous[1] = createdAt;
+        }
+        if (todo.getCompletedAt() != null) {
+            out.writeZigZag(todo.getCompletedAt().getTime());
+        }
+    }
+
+    private static Todo readTodo(Reader in, long[] previous) {
+        int flags = in.readByte();
+        Todo todo = new Todo();
+        if ((flags & HAS_ID) != 0) {
+            previous[0] += in.readZigZag();
+            todo.setId(previous[0]);
+        }
+        if ((flags & HAS_TITLE) != 0) {
+            todo.setTitle(in.readString());
+        }
+        if ((flags & HAS_DESCRIPTION) != 0) {
+            todo.setDescription(in.readString());
+        }
+        Date createdAt = null;
+        if ((flags & HAS_CREATED_AT) != 0) {
+            previous[1] += in.readZigZag();
+            createdAt = new Date(previous[1]);
+        }
+        todo.setCreatedAt(createdAt);
+        todo.setCompleted((flags & COMPLETED) != 0);
+        todo.setCompletedAt((flags & HAS_COMPLETED_AT) != 0 ? new Date(in.readZigZag()) : null);
+        return todo;
+    }
+
+    private static final class Writer {
+        private byte[] buffer = new byte[64];
+        private int length;
+
+        void writeByte(int b) {
+            ensure(1);
+            buffer[length++] = (byte) b;
+        }
+
+        void writeVarLong(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer[length++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[length++] = (byte) value;
+        }
+
+        void writeZigZag(long value) {
+            writeVarLong((value << 1) ^ (value >> 63));
+        }
+
+        void writeString(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(bytes.length);
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, buffer, length, bytes.length);
+            length += bytes.length;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, length);
+        }
+
+        private void ensure(int extra) {
+            if (length + extra > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + extra));
+            }
+        }
+    }
+
+    private static final class Reader {
+        private final byte[] buffer;
+        private int position;
+
+        Reader(byte[] buffer) {
+            this.buffer = buffer;
+        }
+
+        byte readByte() {
+            return buffer[position++];
+        }
+
+        long readVarLong() {
+            long value = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = buffer[position++];
+                value |= (long) (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+        }
+
+        long readZigZag() {
+            long value = readVarLong();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        String readString() {
+            int length = (int) readVarLong();
+            String value = new String(buffer, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+    }
+}
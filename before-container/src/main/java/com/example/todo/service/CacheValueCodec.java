@@ -0,0 +1,49 @@
+package com.example.todo.service;
+
+/**
+ * Encodes TodoCache values (a Todo or a List of todos) to bytes and back.
+ * Used for the off-heap tier and, through {@link CodecValue}, for values
+ * EhCache writes to its disk store.
+ */
+public interface CacheValueCodec {
+
+    /**
+     * Gets the name the codec is configured and recorded under.
+     *
+     * @return the codec name
+     */
+    String name();
+
+    /**
+     * Encodes a cache value.
+     *
+     * @param value a Todo or a List of todos
+     * @return the encoded bytes
+     */
+    byte[] encode(Object value);
+
+    /**
+     * Decodes bytes produced by {@link #encode(Object)}.
+     *
+     * @param bytes the encoded bytes
+     * @return the decoded value
+     */
+    Object decode(byte[] bytes);
+
+    /**
+     * Looks up a codec by name.
+     *
+     * @param name "binary" or "java"
+     * @return the codec
+     * @throws IllegalArgumentException if no codec has that name
+     */
+    static CacheValueCodec forName(String name) {
+        if (BinaryTodoCodec.INSTANCE.name().equals(name)) {
+            return BinaryTodoCodec.INSTANCE;
+        }
+        if (JavaSerializationCodec.INSTANCE.name().equals(name)) {
+            return JavaSerializationCodec.INSTANCE;
+        }
+        throw new IllegalArgumentException("Unknown cache codec: " + name);
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.todo.service;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+
+/**
+ * Holder that EhCache stores in place of a raw cache value.
+ * On heap it just references the value; when EhCache writes the element to
+ * its disk store, the value is written with the configured codec instead of
+ * default Java serialization. The codec name is recorded with the bytes so
+ * entries remain readable if the configured codec changes.
+ */
+public final class CodecValue implements Externalizable {
+    private static final long serialVersionUID = 1L;
+
+    private transient CacheValueCodec codec;
+    private transient Object value;
+
+    /**
+     * Required for deserialization.
+     */
+    public CodecValue() {
+    }
+
+    public CodecValue(CacheValueCodec codec, Object value) {
+        this.codec = codec;
+        this.value = value;
+    }
+
+    public Object getValue() {
+        return value;
+    }
+
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+        byte[] bytes = codec.encode(value);
+        out.writeUTF(codec.name());
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    @Override
+    public void readExternal(ObjectInput in) throws IOException {
+        try {
+            codec = CacheValueCodec.forName(in.readUTF());
+        } catch (IllegalArgumentException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        value = codec.decode(bytes);
+    }
+}
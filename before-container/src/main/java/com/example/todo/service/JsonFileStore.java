@@ -0,0 +1,244 @@
+package com.example.todo.service;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.example.todo.model.Todo;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Original storage format: the whole todo list as one JSON array.
+ * The list is read once and kept in memory; every mutation is applied there
+ * and then saved by writing the complete list to a temp file, forcing it and
+ * atomically renaming it over the original, so readers never see a partial
+ * file. Saves are coalesced: while one thread writes the file, mutations from
+ * other threads queue up and are covered by the next single save.
+ * A failed save rolls back every mutation it covered and fails their
+ * callers; mutations made after its snapshot are kept for the next save.
+ */
+public class JsonFileStore implements TodoStore {
+    private final File file;
+    private final ObjectMapper objectMapper;
+
+    private final Object stateLock = new Object();
+    // Guarded by stateLock; loaded on first use, in file order
+    private Map<Long, Todo> todos;
+    // Guarded by stateLock; number of mutations applied to todos
+    private long version;
+    // Guarded by stateLock; contents of the file as last saved
+    private Map<Long, Todo> savedTodos;
+    // Guarded by stateLock; mutations applied to todos but not yet saved, oldest first
+    private final Deque<Change> unsaved = new ArrayDeque<>();
+
+    private final Object saveLock = new Object();
+    // Guarded by saveLock
+    private boolean saving;
+
+    /**
+     * Creates a store backed by the given JSON file.
+     *
+     * @param file the JSON file, created on first write
+     * @param objectMapper mapper used to read and write the file
+     */
+    public JsonFileStore(File file, ObjectMapper objectMapper) {
+        this.file = file;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public List<Todo> readAll() throws IOException {
+        synchronized (stateLock) {
+            return new ArrayList<>(loaded().values());
+        }
+    }
+
+    @Override
+    public void write(Todo todo) throws IOException {
+        awaitSaved(applyChange(new Change(List.of(TodoMutation.put(todo)), null)));
+    }
+
+    @Override
+    public void delete(long id) throws IOException {
+        Change change;
+        synchronized (stateLock) {
+            if (!loaded().containsKey(id)) {
+                return;
+            }
+            change = applyChange(new Change(List.of(TodoMutation.delete(id)), null));
+        }
+        awaitSaved(change);
+    }
+
+    /**
+     * Applies the whole batch in memory and covers it with a single save.
+     */
+    @Override
+    public void apply(List<TodoMutation> mutations) throws IOException {
+        awaitSaved(applyChange(new Change(new ArrayList<>(mutations), null)));
+    }
+
+    @Override
+    public void replaceAll(List<Todo> todos) throws IOException {
+        awaitSaved(applyChange(new Change(null, new ArrayList<>(todos))));
+    }
+
+    @Override
+    public void close() {
+        // Every mutation is saved before it returns; nothing is held open
+    }
+
+    private Map<Long, Todo> loaded() throws IOException {
+        if (todos == null) {
+            Map<Long, Todo> map = new LinkedHashMap<>();
+            if (file.exists()) {
+                List<Todo> stored = objectMapper.readValue(file, new TypeReference<List<Todo>>() {});
+                for (Todo todo : stored) {
+                    map.put(todo.getId(), todo);
+                }
+            }
+            todos = map;
+            savedTodos = new LinkedHashMap<>(map);
+        }
+        return todos;
+    }
+
+    /**
+     * Applies a change in memory and records it until a save covers it.
+     */
+    private Change applyChange(Change change) throws IOException {
+        synchronized (stateLock) {
+            change.applyTo(loaded());
+            change.version = ++version;
+            unsaved.add(change);
+            return change;
+        }
+    }
+
+    /**
+     * Returns once a save covering the given change has completed, performing
+     * the save itself if no other thread is saving.
+     *
+     * @throws IOException if the save covering the change failed; the
+     *     change has then been rolled back
+     */
+    private void awaitSaved(Change change) throws IOException {
+        while (true) {
+            synchronized (saveLock) {
+                while (saving && !change.saved && change.failure == null) {
+                    try {
+                        saveLock.wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new InterruptedIOException("Interrupted waiting for todo file save");
+                    }
+                }
+                if (change.saved) {
+                    return;
+                }
+                if (change.failure != null) {
+                    throw new IOException("Failed to save todo file", change.failure);
+                }
+                saving = true;
+            }
+
+            List<Todo> snapshot;
+            long snapshotVersion;
+            synchronized (stateLock) {
+                snapshot = new ArrayList<>(todos.values());
+                snapshotVersion = version;
+            }
+            Exception failure = null;
+            try {
+                writeAtomically(snapshot);
+            } catch (IOException | RuntimeException e) {
+                failure = e;
+            }
+
+            List<Change> covered = new ArrayList<>();
+            synchronized (stateLock) {
+                while (!unsaved.isEmpty() && unsaved.peekFirst().version <= snapshotVersion) {
+                    covered.add(unsaved.pollFirst());
+                }
+                if (failure == null) {
+                    savedTodos = new LinkedHashMap<>();
+                    for (Todo todo : snapshot) {
+                        savedTodos.put(todo.getId(), todo);
+                    }
+                } else {
+                    // Back to the file's contents plus whatever came after the snapshot
+                    todos = new LinkedHashMap<>(savedTodos);
+                    for (Change later : unsaved) {
+                        later.applyTo(todos);
+                    }
+                }
+            }
+            synchronized (saveLock) {
+                for (Change done : covered) {
+                    if (failure == null) {
+                        done.saved = true;
+                    } else {
+                        done.failure = failure;
+                    }
+                }
+                saving = false;
+                saveLock.notifyAll();
+            }
+        }
+    }
+
+    private void writeAtomically(List<Todo> snapshot) throws IOException {
+        byte[] json = objectMapper.writeValueAsBytes(snapshot);
+        File tmp = new File(file.getPath() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(tmp)) {
+            out.write(json);
+            out.getFD().sync();
+        }
+        Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * One mutation call: either a list of mutations or a replacement of all todos.
+     */
+    private static final class Change {
+        private final List<TodoMutation> mutations;
+        private final List<Todo> replacement;
+        // Guarded by stateLock
+        private long version;
+        // Guarded by saveLock
+        private boolean saved;
+        private Exception failure;
+
+        private Change(List<TodoMutation> mutations, List<Todo> replacement) {
+            this.mutations = mutations;
+            this.replacement = replacement;
+        }
+
+        private void applyTo(Map<Long, Todo> map) {
+            if (replacement != null) {
+                map.clear();
+                for (Todo todo : replacement) {
+                    map.put(todo.getId(), todo);
+                }
+                return;
+            }
+            for (TodoMutation mutation : mutations) {
+                if (mutation.isDelete()) {
+                    map.remove(mutation.getId());
+                } else {
+                    map.put(mutation.getId(), mutation.getTodo());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.example.todo.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.example.todo.model.Todo;
+
+/**
+ * Open-addressing hash map from primitive long IDs to todos.
+ * Keys are kept in a long[] with linear probing, so lookups neither box the
+ * ID nor allocate. Not thread-safe; TodoStorage guards it with its lock.
+ */
+final class LongTodoMap {
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final long EMPTY = 0L;
+
+    private long[] keys;
+    private Todo[] values;
+    private int size;
+    private Todo zeroValue;
+    private boolean hasZero;
+
+    LongTodoMap() {
+        this(INITIAL_CAPACITY);
+    }
+
+    LongTodoMap(int expectedSize) {
+        int capacity = INITIAL_CAPACITY;
+        while (capacity < expectedSize * 2L && capacity < (1 << 30)) {
+            capacity <<= 1;
+        }
+        keys = new long[capacity];
+        values = new Todo[capacity];
+    }
+
+    int size() {
+        return size + (hasZero ? 1 : 0);
+    }
+
+    Todo get(long key) {
+        if (key == EMPTY) {
+            return zeroValue;
+        }
+        int mask = keys.length - 1;
+        for (int i = slot(key, mask); ; i = (i + 1) & mask) {
+            long k = keys[i];
+            if (k == key) {
+                return values[i];
+            }
+            if (k == EMPTY) {
+                return null;
+            }
+        }
+    }
+
+    void put(long key, Todo value) {
+        if (key == EMPTY) {
+            zeroValue = value;
+            hasZero = true;
+            return;
+        }
+        if ((size + 1) * 2 > keys.length) {
+            resize(keys.length << 1);
+        }
+        int mask = keys.length - 1;
+        for (int i = slot(key, mask); ; i = (i + 1) & mask) {
+            long k = keys[i];
+            if (k == EMPTY) {
+                keys[i] = key;
+                values[i] = value;
+                size++;
+                return;
+            }
+            if (k == key) {
+                values[i] = value;
+                return;
+            }
+        }
+    }
+
+    Todo remove(long key) {
+        if (key == EMPTY) {
+            Todo previous = zeroValue;
+            zeroValue = null;
+            hasZero = false;
+            return previous;
+        }
+        int mask = keys.length - 1;
+        for (int i = slot(key, mask); ; i = (i + 1) & mask) {
+            long k = keys[i];
+            if (k == EMPTY) {
+                return null;
+            }
+            if (k == key) {
+                Todo previous = values[i];
+                shiftBack(i, mask);
+                size--;
+                return previous;
+            }
+        }
+    }
+
+    /**
+     * Gets every value in unspecified order.
+     */
+    List<Todo> values() {
+        List<Todo> result = new ArrayList<>(size());
+        if (hasZero) {
+            result.add(zeroValue);
+        }
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) {
+                result.add(values[i]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Gets the largest key, or 0 if the map is empty.
+     */
+    long maxKey() {
+        long max = 0;
+        for (long key : keys) {
+            max = Math.max(max, key);
+        }
+        return max;
+    }
+
+    /**
+     * Closes the gap left at a removed slot by moving later entries of the probe chain back.
+     */
+    private void shiftBack(int gap, int mask) {
+        for (int i = (gap + 1) & mask; keys[i] != EMPTY; i = (i + 1) & mask) {
+            int home = slot(keys[i], mask);
+            // Move the entry if its home slot does not lie cyclically in (gap, i]
+            if (((i - home) & mask) >= ((i - gap) & mask)) {
+                keys[gap] = keys[i];
+                values[gap] = values[i];
+                gap = i;
+            }
+        }
+        keys[gap] = EMPTY;
+        values[gap] = null;
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        Todo[] oldValues = values;
+        keys = new long[capacity];
+        values = new Todo[capacity];
+        int mask = capacity - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            long key = oldKeys[j];
+            if (key != EMPTY) {
+                int i = slot(key, mask);
+                while (keys[i] != EMPTY) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = key;
+                values[i] = oldValues[j];
+            }
+        }
+    }
+
+    private static int slot(long key, int mask) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+}
@@ -0,0 +1,531 @@
+package com.example.todo.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32;
+
+import com.example.todo.model.Todo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Memory-mapped, fixed-layout binary todo store.
+ * Each todo occupies one fixed-width slot holding its scalar fields and the
+ * offsets of its title and description in a string heap at the end of the
+ * file, so lookups and scans read the mapped pages directly instead of
+ * parsing the whole file.
+ *
+ * <p>File layout: a 64 byte header [magic, version, slotCapacity, slotCount,
+ * heapEnd], then slotCapacity slots of SLOT_SIZE bytes, then the UTF-8 string
+ * heap. A slot is [id, createdAt, completedAt, sequence, flags, titleOffset,
+ * titleLength, descriptionOffset, descriptionLength, crc32]; id 0 marks a free
+ * slot and a length of -1 a null string. Slots are 64 bytes and 64 byte
+ * aligned, so none spans two pages.
+ *
+ * <p>Slots are never overwritten in place: an update writes the new version
+ * into a free slot and clears the old one only after the new one is forced,
+ * so a crash leaves either version intact. Strings are forced before the
+ * slots that reference them, torn slots fail their checksum and are cleared
+ * on open, and when both versions of a todo survive the one with the higher
+ * sequence wins. Running out of slots, too much dead string data, and
+ * replaceAll rewrite the file into a temp copy that is atomically renamed
+ * over the original.
+ */
+public class MappedTodoStore implements TodoStore {
+    private static final Logger logger = LoggerFactory.getLogger(MappedTodoStore.class);
+
+    private static final int MAGIC = 0x544D4150; // "TMAP"
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 64;
+    private static final int SLOT_CAPACITY_OFFSET = 8;
+    private static final int SLOT_COUNT_OFFSET = 12;
+    private static final int HEAP_END_OFFSET = 16;
+
+    private static final int SLOT_SIZE = 64;
+    private static final int ID = 0;
+    private static final int CREATED_AT = 8;
+    private static final int COMPLETED_AT = 16;
+    private static final int SEQUENCE = 24;
+    private static final int FLAGS = 32;
+    private static final int TITLE_OFFSET = 36;
+    private static final int TITLE_LENGTH = 40;
+    private static final int DESCRIPTION_OFFSET = 44;
+    private static final int DESCRIPTION_LENGTH = 48;
+    private static final int CRC = 52;
+
+    private static final byte COMPLETED = 1;
+    private static final long NULL_TIME = Long.MIN_VALUE;
+    private static final int INITIAL_SLOTS = 1024;
+    private static final int INITIAL_HEAP = 256 * 1024;
+    private static final long MIN_COMPACTION_BYTES = 1024 * 1024;
+
+    private final Path path;
+    private final boolean syncWrites;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Guarded by lock
+    private Mapping mapping;
+    private Map<Long, Integer> index = new HashMap<>();
+    private Deque<Integer> freeSlots = new ArrayDeque<>();
+    private long deadHeapBytes;
+    private long sequence;
+
+    /**
+     * Opens or creates the mapped store.
+     *
+     * @param path the store file
+     * @param syncWrites whether every mutation forces the mapped pages to disk
+     * @throws IOException if the file cannot be mapped or is not a todo store
+     */
+    public MappedTodoStore(Path path, boolean syncWrites) throws IOException {
+        this.path = path;
+        this.syncWrites = syncWrites;
+        if (exists(path)) {
+            mapping = Mapping.open(path);
+        } else {
+            mapping = Mapping.create(path, INITIAL_SLOTS, INITIAL_HEAP);
+        }
+        loadIndex();
+        logger.info("Opened mapped todo store {} with {} todos", path, index.size());
+    }
+
+    /**
+     * Checks whether a store file exists and holds at least its header.
+     *
+     * @param path the store file
+     * @return true if a store was previously created at the path
+     */
+    public static boolean exists(Path path) {
+        try {
+            return Files.size(path) >= HEADER_SIZE;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public List<Todo> readAll() {
+        lock.readLock().lock();
+        try {
+            List<Todo> todos = new ArrayList<>(index.size());
+            for (int slot : index.values()) {
+                todos.add(mapping.readSlot(slot));
+            }
+            todos.sort(Comparator.comparing(Todo::getId));
+            return todos;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Reads a single todo straight from its mapped slot.
+     *
+     * @param id the ID of the todo
+     * @return the todo, or null if it is not stored
+     */
+    public Todo read(long id) {
+        lock.readLock().lock();
+        try {
+            Integer slot = index.get(id);
+            return slot == null ? null : mapping.readSlot(slot);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void write(Todo todo) throws IOException {
+        apply(Collections.singletonList(TodoMutation.put(todo)));
+    }
+
+    @Override
+    public void delete(long id) throws IOException {
+        apply(Collections.singletonList(TodoMutation.delete(id)));
+    }
+
+    /**
+     * Applies the batch in three phases, forcing after each: all strings are
+     * appended, then every put is written into a free slot, then the slots
+     * of deleted and replaced versions are cleared. A slot never points at
+     * strings that are not yet on disk, and an old version is only cleared
+     * once its replacement is durable. Slots are reserved up front so the
+     * file is never rewritten in the middle of a batch.
+     */
+    @Override
+    public void apply(List<TodoMutation> mutations) throws IOException {
+        lock.writeLock().lock();
+        try {
+            Set<Long> putIds = new HashSet<>();
+            for (TodoMutation mutation : mutations) {
+                if (!mutation.isDelete()) {
+                    putIds.add(mutation.getId());
+                }
+            }
+            int availableSlots = freeSlots.size() + mapping.slotCapacity() - mapping.slotCount();
+            if (putIds.size() > availableSlots) {
+                int capacity = mapping.slotCapacity();
+                while (capacity < index.size() + putIds.size()) {
+                    capacity *= 2;
+                }
+                rewrite(readAll(), capacity);
+            }
+
+            int[][] strings = new int[mutations.size()][];
+            for (int i = 0; i < mutations.size(); i++) {
+                if (!mutations.get(i).isDelete()) {
+                    strings[i] = mapping.appendStrings(mutations.get(i).getTodo());
+                }
+            }
+            if (syncWrites) {
+                mapping.buffer.force();
+            }
+
+            // Slots first written by this batch; a later put of the same todo may reuse them
+            Set<Integer> written = new HashSet<>();
+            List<Integer> superseded = new ArrayList<>();
+            for (int i = 0; i < mutations.size(); i++) {
+                TodoMutation mutation = mutations.get(i);
+                Integer slot = mutation.isDelete() ? index.remove(mutation.getId()) : index.get(mutation.getId());
+                if (slot != null) {
+                    deadHeapBytes += mapping.stringBytes(slot);
+                }
+                if (mutation.isDelete()) {
+                    if (slot != null) {
+                        superseded.add(slot);
+                    }
+                    continue;
+                }
+                if (slot == null || !written.contains(slot)) {
+                    if (slot != null) {
+                        superseded.add(slot);
+                    }
+                    slot = freeSlots.isEmpty() ? mapping.slotCount() : freeSlots.poll();
+                    written.add(slot);
+                }
+                mapping.writeSlot(slot, mutation.getTodo(), strings[i], ++sequence);
+                index.put(mutation.getId(), slot);
+            }
+            if (syncWrites) {
+                mapping.buffer.force();
+            }
+
+            for (int slot : superseded) {
+                mapping.clearSlot(slot);
+                freeSlots.add(slot);
+            }
+            if (syncWrites && !superseded.isEmpty()) {
+                mapping.buffer.force();
+            }
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void replaceAll(List<Todo> todos) throws IOException {
+        lock.writeLock().lock();
+        try {
+            int capacity = INITIAL_SLOTS;
+            while (capacity < todos.size() * 2L && capacity < Integer.MAX_VALUE / 2) {
+                capacity *= 2;
+            }
+            rewrite(todos, capacity);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        lock.writeLock().lock();
+        try {
+            mapping.buffer.force();
+            mapping.channel.close();
+            logger.info("Closed mapped todo store {}", path);
+        } catch (IOException e) {
+            logger.error("Failed to close mapped todo store {}", path, e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void compactIfNeeded() throws IOException {
+        long heapUsed = mapping.heapEnd() - mapping.heapStart();
+        if (deadHeapBytes >= MIN_COMPACTION_BYTES && deadHeapBytes * 2 >= heapUsed) {
+            long before = heapUsed;
+            rewrite(readAll(), mapping.slotCapacity());
+            logger.info("Compacted mapped todo store heap from {} to {} bytes",
+                before, mapping.heapEnd() - mapping.heapStart());
+        }
+    }
+
+    /**
+     * Writes the todos into a fresh temp file and atomically swaps it in. Caller holds the write lock.
+     */
+    private void rewrite(List<Todo> todos, int slotCapacity) throws IOException {
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        Files.deleteIfExists(tmp);
+        Mapping fresh = Mapping.create(tmp, slotCapacity, INITIAL_HEAP);
+        try {
+            for (int slot = 0; slot < todos.size(); slot++) {
+                fresh.writeSlot(slot, todos.get(slot), fresh.appendStrings(todos.get(slot)), slot + 1L);
+            }
+            fresh.buffer.force();
+        } finally {
+            fresh.channel.close();
+        }
+        Files.move(tmp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        mapping.channel.close();
+        mapping = Mapping.open(path);
+        loadIndex();
+    }
+
+    /**
+     * Rebuilds the index from the slots, clearing torn slots and the older
+     * of two versions left behind by an interrupted update.
+     */
+    private void loadIndex() {
+        Map<Long, Integer> newIndex = new HashMap<>();
+        Deque<Integer> newFreeSlots = new ArrayDeque<>();
+        long liveHeapBytes = 0;
+        long maxSequence = 0;
+        boolean repaired = false;
+        int slotCount = mapping.slotCount();
+        for (int slot = 0; slot < slotCount; slot++) {
+            long id = mapping.buffer.getLong(mapping.slotOffset(slot) + ID);
+            if (id == 0) {
+                newFreeSlots.add(slot);
+                continue;
+            }
+            if (!mapping.slotIntact(slot)) {
+                logger.warn("Discarding torn slot {} for todo {} in {}", slot, id, path);
+                mapping.clearSlot(slot);
+                newFreeSlots.add(slot);
+                repaired = true;
+                continue;
+            }
+            long slotSequence = mapping.sequence(slot);
+            maxSequence = Math.max(maxSequence, slotSequence);
+            Integer other = newIndex.get(id);
+            if (other != null) {
+                int older = mapping.sequence(other) < slotSequence ? other : slot;
+                logger.warn("Discarding superseded slot {} for todo {} in {}", older, id, path);
+                mapping.clearSlot(older);
+                newFreeSlots.add(older);
+                repaired = true;
+                if (older == slot) {
+                    continue;
+                }
+                liveHeapBytes -= mapping.stringBytes(other);
+            }
+            newIndex.put(id, slot);
+            liveHeapBytes += mapping.stringBytes(slot);
+        }
+        if (repaired) {
+            mapping.buffer.force();
+        }
+        index = newIndex;
+        freeSlots = newFreeSlots;
+        sequence = maxSequence;
+        deadHeapBytes = mapping.heapEnd() - mapping.heapStart() - liveHeapBytes;
+    }
+
+    /**
+     * One mapped store file and its slot and heap accessors.
+     */
+    private static final class Mapping {
+        private final FileChannel channel;
+        private MappedByteBuffer buffer;
+
+        private Mapping(FileChannel channel, MappedByteBuffer buffer) {
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+
+        static Mapping create(Path path, int slotCapacity, int heapCapacity) throws IOException {
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+            long heapStart = HEADER_SIZE + (long) slotCapacity * SLOT_SIZE;
+            Mapping mapping = new Mapping(channel, map(channel, heapStart + heapCapacity));
+            mapping.buffer.putInt(0, MAGIC);
+            mapping.buffer.putInt(4, VERSION);
+            mapping.buffer.putInt(SLOT_CAPACITY_OFFSET, slotCapacity);
+            mapping.buffer.putInt(SLOT_COUNT_OFFSET, 0);
+            mapping.buffer.putLong(HEAP_END_OFFSET, heapStart);
+            mapping.buffer.force();
+            return mapping;
+        }
+
+        static Mapping open(Path path) throws IOException {
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            Mapping mapping = new Mapping(channel, map(channel, channel.size()));
+            if (mapping.buffer.getInt(0) != MAGIC || mapping.buffer.getInt(4) != VERSION) {
+                channel.close();
+                throw new IOException("Not a mapped todo store (version " + VERSION + "): " + path);
+            }
+            return mapping;
+        }
+
+        private static MappedByteBuffer map(FileChannel channel, long size) throws IOException {
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Mapped todo store cannot grow past 2 GB; use storage.format=log");
+            }
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+
+        int slotCapacity() {
+            return buffer.getInt(SLOT_CAPACITY_OFFSET);
+        }
+
+        int slotCount() {
+            return buffer.getInt(SLOT_COUNT_OFFSET);
+        }
+
+        long heapStart() {
+            return HEADER_SIZE + (long) slotCapacity() * SLOT_SIZE;
+        }
+
+        long heapEnd() {
+            return buffer.getLong(HEAP_END_OFFSET);
+        }
+
+        int slotOffset(int slot) {
+            return HEADER_SIZE + slot * SLOT_SIZE;
+        }
+
+        Todo readSlot(int slot) {
+            int base = slotOffset(slot);
+            Todo todo = new Todo();
+            todo.setId(buffer.getLong(base + ID));
+            todo.setTitle(readString(buffer.getInt(base + TITLE_OFFSET), buffer.getInt(base + TITLE_LENGTH)));
+            todo.setDescription(readString(
+                buffer.getInt(base + DESCRIPTION_OFFSET), buffer.getInt(base + DESCRIPTION_LENGTH)));
+            todo.setCompleted((buffer.get(base + FLAGS) & COMPLETED) != 0);
+            todo.setCreatedAt(toDate(buffer.getLong(base + CREATED_AT)));
+            todo.setCompletedAt(toDate(buffer.getLong(base + COMPLETED_AT)));
+            return todo;
+        }
+
+        long sequence(int slot) {
+            return buffer.getLong(slotOffset(slot) + SEQUENCE);
+        }
+
+        long stringBytes(int slot) {
+            int base = slotOffset(slot);
+            return Math.max(0, buffer.getInt(base + TITLE_LENGTH))
+                + Math.max(0, buffer.getInt(base + DESCRIPTION_LENGTH));
+        }
+
+        boolean slotIntact(int slot) {
+            return buffer.getInt(slotOffset(slot) + CRC) == slotChecksum(slot);
+        }
+
+        /**
+         * Appends the todo's strings to the heap.
+         *
+         * @return title offset, title length, description offset and description length
+         */
+        int[] appendStrings(Todo todo) throws IOException {
+            byte[] title = todo.getTitle() == null ? null : todo.getTitle().getBytes(StandardCharsets.UTF_8);
+            byte[] description = todo.getDescription() == null
+                ? null : todo.getDescription().getBytes(StandardCharsets.UTF_8);
+            return new int[] {
+                appendString(title), title == null ? -1 : title.length,
+                appendString(description), description == null ? -1 : description.length
+            };
+        }
+
+        /**
+         * Fills a slot with the todo's fields and the strings appended for it.
+         */
+        void writeSlot(int slot, Todo todo, int[] strings, long sequence) {
+            int base = slotOffset(slot);
+            buffer.putLong(base + ID, todo.getId());
+            buffer.putLong(base + CREATED_AT, toMillis(todo.getCreatedAt()));
+            buffer.putLong(base + COMPLETED_AT, toMillis(todo.getCompletedAt()));
+            buffer.putLong(base + SEQUENCE, sequence);
+            buffer.put(base + FLAGS, todo.isCompleted() ? COMPLETED : 0);
+            buffer.putInt(base + TITLE_OFFSET, strings[0]);
+            buffer.putInt(base + TITLE_LENGTH, strings[1]);
+            buffer.putInt(base + DESCRIPTION_OFFSET, strings[2]);
+            buffer.putInt(base + DESCRIPTION_LENGTH, strings[3]);
+            buffer.putInt(base + CRC, slotChecksum(slot));
+            if (slot >= slotCount()) {
+                buffer.putInt(SLOT_COUNT_OFFSET, slot + 1);
+            }
+        }
+
+        void clearSlot(int slot) {
+            int base = slotOffset(slot);
+            buffer.putLong(base + ID, 0);
+            buffer.putInt(base + CRC, slotChecksum(slot));
+        }
+
+        private int appendString(byte[] bytes) throws IOException {
+            if (bytes == null) {
+                return 0;
+            }
+            long heapEnd = heapEnd();
+            long required = heapEnd + bytes.length;
+            if (required > buffer.capacity()) {
+                buffer.force();
+                buffer = map(channel, Math.max(required, (long) buffer.capacity() * 2));
+            }
+            ByteBuffer target = buffer.duplicate();
+            target.position((int) heapEnd);
+            target.put(bytes);
+            buffer.putLong(HEAP_END_OFFSET, required);
+            return (int) (heapEnd - heapStart());
+        }
+
+        private String readString(int offset, int length) {
+            if (length < 0) {
+                return null;
+            }
+            byte[] bytes = new byte[length];
+            ByteBuffer source = buffer.duplicate();
+            source.position((int) (heapStart() + offset));
+            source.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        private int slotChecksum(int slot) {
+            byte[] fields = new byte[CRC];
+            ByteBuffer source = buffer.duplicate();
+            source.position(slotOffset(slot));
+            source.get(fields);
+            CRC32 crc = new CRC32();
+            crc.update(fields, 0, fields.length);
+            return (int) crc.getValue();
+        }
+
+        private static long toMillis(Date date) {
+            return date == null ? NULL_TIME : date.getTime();
+        }
+
+        private static Date toDate(long millis) {
+            return millis == NULL_TIME ? null : new Date(millis);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.todo.service;
+
+/**
+ * Point-in-time occupancy and hit statistics of the TodoCache off-heap tier.
+ */
+public class OffHeapStats {
+    private final long capacityBytes;
+    private final long usedBytes;
+    private final long storedBytes;
+    private final int entryCount;
+    private final long hitCount;
+    private final long missCount;
+    private final long evictionCount;
+
+    /**
+     * Creates an off-heap snapshot.
+     *
+     * @param capacityBytes direct memory reserved for the tier
+     * @param usedBytes memory in blocks currently allocated to entries
+     * @param storedBytes serialized bytes of all entries, excluding block padding
+     * @param entryCount number of entries
+     * @param hitCount lookups that found a live entry
+     * @param missCount lookups that found nothing or an expired entry
+     * @param evictionCount entries evicted to make room
+     */
+    public OffHeapStats(long capacityBytes, long usedBytes, long storedBytes, int entryCount,
+                        long hitCount, long missCount, long evictionCount) {
+        this.capacityBytes = capacityBytes;
+        this.usedBytes = usedBytes;
+        this.storedBytes = storedBytes;
+        this.entryCount = entryCount;
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.evictionCount = evictionCount;
+    }
+
+    public long getCapacityBytes() {
+        return capacityBytes;
+    }
+
+    public long getUsedBytes() {
+        return usedBytes;
+    }
+
+    public long getStoredBytes() {
+        return storedBytes;
+    }
+
+    public int getEntryCount() {
+        return entryCount;
+    }
+
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    public long getMissCount() {
+        return missCount;
+    }
+
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * Gets the fraction of the reserved memory allocated to entries.
+     *
+     * @return used bytes divided by capacity, 0 if the tier has no capacity
+     */
+    public double getOccupancy() {
+        return capacityBytes > 0 ? (double) usedBytes / capacityBytes : 0.0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d entries, %d/%d bytes used (%.1f%%), %d stored, %d hits, %d misses, %d evictions",
+            entryCount, usedBytes, capacityBytes, getOccupancy() * 100, storedBytes,
+            hitCount, missCount, evictionCount);
+    }
+}
@@ -0,0 +1,160 @@
+package com.example.todo.service;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Byte-budgeted LRU store of serialized values in direct memory.
+ * One direct arena is allocated up front and split into fixed-size blocks;
+ * each entry occupies as many blocks as its bytes need, so freed space is
+ * reused without fragmentation and without churning direct buffers. Only
+ * the key and its block numbers stay on heap. All methods are synchronized;
+ * values are copied out before decoding so blocks can be reused safely.
+ */
+final class OffHeapStore {
+    static final int BLOCK_SIZE = 256;
+
+    private final ByteBuffer arena;
+    private final int blockCount;
+    private final int[] freeBlocks;
+    private int freeCount;
+    private final LinkedHashMap<Object, Slot> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long storedBytes;
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+
+    /**
+     * Allocates the arena.
+     *
+     * @param capacityBytes direct memory to reserve, rounded down to whole blocks and capped at 2 GB
+     */
+    OffHeapStore(long capacityBytes) {
+        this.blockCount = (int) Math.min(capacityBytes / BLOCK_SIZE, Integer.MAX_VALUE / BLOCK_SIZE);
+        this.arena = ByteBuffer.allocateDirect(blockCount * BLOCK_SIZE);
+        this.freeBlocks = new int[blockCount];
+        for (int i = 0; i < blockCount; i++) {
+            freeBlocks[i] = blockCount - 1 - i;
+        }
+        this.freeCount = blockCount;
+    }
+
+    /**
+     * Gets a copy of the bytes stored for a key.
+     *
+     * @return the stored entry, or null if absent or expired
+     */
+    synchronized Hit get(Object key) {
+        Slot slot = entries.get(key);
+        if (slot == null) {
+            missCount++;
+            return null;
+        }
+        if (slot.expirationTime <= System.currentTimeMillis()) {
+            entries.remove(key);
+            release(slot);
+            missCount++;
+            return null;
+        }
+        byte[] bytes = new byte[slot.length];
+        for (int i = 0, copied = 0; copied < bytes.length; i++) {
+            int chunk = Math.min(BLOCK_SIZE, bytes.length - copied);
+            arena.position(slot.blocks[i] * BLOCK_SIZE);
+            arena.get(bytes, copied, chunk);
+            copied += chunk;
+        }
+        hitCount++;
+        return new Hit(bytes, slot.expirationTime);
+    }
+
+    /**
+     * Stores bytes under a key, evicting least recently used entries to make room.
+     *
+     * @return false if the value is larger than the whole store and was not stored
+     */
+    synchronized boolean put(Object key, byte[] bytes, long expirationTime) {
+        remove(key);
+        int needed = (bytes.length + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        if (needed > blockCount) {
+            return false;
+        }
+        Iterator<Map.Entry<Object, Slot>> eldest = entries.entrySet().iterator();
+        while (freeCount < needed) {
+            Slot evicted = eldest.next().getValue();
+            eldest.remove();
+            release(evicted);
+            evictionCount++;
+        }
+
+        int[] blocks = new int[needed];
+        for (int i = 0, copied = 0; i < needed; i++) {
+            blocks[i] = freeBlocks[--freeCount];
+            int chunk = Math.min(BLOCK_SIZE, bytes.length - copied);
+            arena.position(blocks[i] * BLOCK_SIZE);
+            arena.put(bytes, copied, chunk);
+            copied += chunk;
+        }
+        entries.put(key, new Slot(blocks, bytes.length, expirationTime));
+        storedBytes += bytes.length;
+        return true;
+    }
+
+    synchronized void remove(Object key) {
+        Slot slot = entries.remove(key);
+        if (slot != null) {
+            release(slot);
+        }
+    }
+
+    synchronized List<Object> keys() {
+        return new ArrayList<>(entries.keySet());
+    }
+
+    synchronized void clear() {
+        for (Slot slot : entries.values()) {
+            release(slot);
+        }
+        entries.clear();
+    }
+
+    synchronized OffHeapStats getStats() {
+        return new OffHeapStats((long) blockCount * BLOCK_SIZE, (long) (blockCount - freeCount) * BLOCK_SIZE,
+            storedBytes, entries.size(), hitCount, missCount, evictionCount);
+    }
+
+    private void release(Slot slot) {
+        for (int block : slot.blocks) {
+            freeBlocks[freeCount++] = block;
+        }
+        storedBytes -= slot.length;
+    }
+
+    /**
+     * Bytes and expiration time of a stored entry.
+     */
+    static final class Hit {
+        final byte[] bytes;
+        final long expirationTime;
+
+        Hit(byte[] bytes, long expirationTime) {
+            this.bytes = bytes;
+            this.expirationTime = expirationTime;
+        }
+    }
+
+    private static final class Slot {
+        final int[] blocks;
+        final int length;
+        final long expirationTime;
+
+        Slot(int[] blocks, int length, long expirationTime) {
+            this.blocks = blocks;
+            this.length = length;
+            this.expirationTime = expirationTime;
+        }
+    }
+}
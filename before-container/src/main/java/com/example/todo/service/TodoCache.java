@@ -1,7 +1,30 @@
 package com.example.todo.service;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
 
 import com.example.todo.model.Todo;
 import net.sf.ehcache.Cache;
@@ -13,11 +36,43 @@
 /**
  * Manages caching of Todo items using EhCache.
  * Provides caching operations for both individual todos and the complete list.
+ * Writes are applied to the cached entries in place rather than clearing
+ * the cache; the list is copied on write so readers never see it change.
+ * Misses are loaded single-flight: concurrent callers for the same key share
+ * one load. With cache.refreshAheadSeconds set, entries that are that close
+ * to expiry are reloaded in the background while the current value is served.
+ *
+ * <p>With cache.offHeapBytes set, values are kept serialized in an off-heap
+ * tier of that size instead of as object graphs in the EhCache heap store,
+ * and are decoded on each hit. Values are encoded with the codec named by
+ * cache.codec, both off heap and when EhCache writes them to its disk store.
+ *
+ * <p>Once snapshots are enabled, the cached list and the IDs of cached todos
+ * are written to cache.snapshotPath on close (and every
+ * cache.snapshotIntervalSeconds), and loaded in the background on the next
+ * start. A snapshot is only applied if its list matches the storage
+ * fingerprint, so one taken before later writes is rejected.
  */
 public class TodoCache {
     private static final Logger logger = LoggerFactory.getLogger(TodoCache.class);
     private final Cache cache;
     private static final String ALL_TODOS_KEY = "all_todos";
+    private static final int SNAPSHOT_MAGIC = 0x54435350; // "TCSP"
+    private static final int SNAPSHOT_VERSION = 1;
+    private final Object listLock = new Object();
+    // Bumped on every write so a list loaded before the write is not cached over it
+    private final AtomicLong listVersion = new AtomicLong();
+    private final ConcurrentHashMap<Object, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final Set<Object> refreshing = ConcurrentHashMap.newKeySet();
+    private final long refreshAheadMillis;
+    private final ExecutorService refresher;
+    private final OffHeapStore offHeap;
+    private final long offHeapTtlMillis;
+    private final CacheValueCodec codec;
+    private final Path snapshotPath;
+    private final long snapshotIntervalSeconds;
+    private ScheduledExecutorService snapshotter;
+    private LongSupplier storageFingerprint;
 
     /**
      * Initializes the cache using configuration from properties file and ehcache.xml.
@@ -25,9 +80,17 @@ public class TodoCache {
      * @throws RuntimeException if cache initialization fails
      */
     public TodoCache() {
+        this(loadConfig());
+    }
+
+    /**
+     * Initializes the cache from the given configuration and ehcache.xml.
+     *
+     * @param props cache configuration
+     * @throws RuntimeException if cache initialization fails
+     */
+    public TodoCache(Properties props) {
         try {
-            Properties props = new Properties();
-            props.load(getClass().getClassLoader().getResourceAsStream("config.properties"));
             String cacheName = props.getProperty("cache.name");
             
             CacheManager cacheManager = CacheManager.create(
@@ -38,22 +101,199 @@ public TodoCache() {
                 throw new RuntimeException(
                     "Cache '" + cacheName + "' not found in configuration");
             }
+
+            this.refreshAheadMillis = Long.parseLong(props.getProperty("cache.refreshAheadSeconds", "0")) * 1000;
+            this.refresher = refreshAheadMillis > 0
+                ? Executors.newSingleThreadExecutor(r -> {
+                    Thread thread = new Thread(r, "todo-cache-refresh");
+                    thread.setDaemon(true);
+                    return thread;
+                })
+                : null;
+
+            this.codec = CacheValueCodec.forName(props.getProperty("cache.codec", "binary"));
+            long offHeapBytes = Long.parseLong(props.getProperty("cache.offHeapBytes", "0"));
+            this.offHeap = offHeapBytes > 0 ? new OffHeapStore(offHeapBytes) : null;
+            long ttlSeconds = cache.getCacheConfiguration().getTimeToLiveSeconds();
+            this.offHeapTtlMillis = cache.getCacheConfiguration().isEternal() || ttlSeconds == 0
+                ? Long.MAX_VALUE / 2 : ttlSeconds * 1000;
+            if (offHeap != null) {
+                logger.info("Off-heap cache tier enabled with {} bytes", offHeapBytes);
+            }
+
+            String snapshotFile = props.getProperty("cache.snapshotPath", "data/cache/todo-cache.snapshot");
+            this.snapshotPath = snapshotFile.isEmpty()
+                ? null : new File(System.getProperty("user.dir"), snapshotFile).toPath();
+            this.snapshotIntervalSeconds = Long.parseLong(props.getProperty("cache.snapshotIntervalSeconds", "0"));
         } catch (Exception e) {
             logger.error("Failed to initialize cache", e);
             throw new RuntimeException("Cache initialization failed", e);
         }
     }
 
+    private static Properties loadConfig() {
+        Properties props = new Properties();
+        try (InputStream in = TodoCache.class.getClassLoader().getResourceAsStream("config.properties")) {
+            props.load(in);
+        } catch (Exception e) {
+            logger.error("Failed to initialize cache", e);
+            throw new RuntimeException("Cache initialization failed", e);
+        }
+        return props;
+    }
+
     /**
      * Caches the complete list of todos.
      *
      * @param todos List of todos to cache
      */
     public void cacheTodos(List<Todo> todos) {
-        cache.put(new Element(ALL_TODOS_KEY, todos));
+        synchronized (listLock) {
+            store(ALL_TODOS_KEY, todos);
+        }
+        logger.info("Cached {} todos", todos.size());
+    }
+
+    /**
+     * Gets the list of all todos, loading it on a miss. Concurrent misses share
+     * a single call to the loader, and the loaded list is cached.
+     *
+     * @param loader loads the list from storage
+     * @return List of todos
+     */
+    @SuppressWarnings("unchecked")
+    public List<Todo> getTodos(Supplier<List<Todo>> loader) {
+        Supplier<Object> load = () -> {
+            long version = listVersion.get();
+            List<Todo> todos = loader.get();
+            cacheTodos(todos, version);
+            return todos;
+        };
+        Cached cached = lookup(ALL_TODOS_KEY);
+        if (cached != null) {
+            logger.info("Cache hit for todos list");
+            refreshIfExpiring(ALL_TODOS_KEY, cached.expirationTime, load);
+            return (List<Todo>) cached.value;
+        }
+        logger.info("Cache miss for todos list");
+        return (List<Todo>) loadOnce(ALL_TODOS_KEY, load);
+    }
+
+    /**
+     * Gets a todo by ID, loading it on a miss. Concurrent misses for the same
+     * ID share a single call to the loader; todos that exist are cached.
+     *
+     * @param id The ID of the todo
+     * @param loader loads the todo from storage, returning null if it does not exist
+     * @return The todo, or null if it does not exist
+     */
+    public Todo getTodo(Long id, Function<Long, Todo> loader) {
+        Supplier<Object> load = () -> {
+            long version = listVersion.get();
+            Todo todo = loader.apply(id);
+            if (todo != null) {
+                synchronized (listLock) {
+                    if (listVersion.get() == version) {
+                        store(todo.getId(), todo);
+                    }
+                }
+            }
+            return todo;
+        };
+        Cached cached = lookup(id);
+        if (cached != null) {
+            logger.info("Cache hit for todo id: {}", id);
+            refreshIfExpiring(id, cached.expirationTime, load);
+            return (Todo) cached.value;
+        }
+        logger.info("Cache miss for todo id: {}", id);
+        return (Todo) loadOnce(id, load);
+    }
+
+    /**
+     * Runs the load unless one is already running for the key, in which case
+     * waits for and returns that load's result.
+     */
+    private Object loadOnce(Object key, Supplier<Object> load) {
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, future);
+        if (existing != null) {
+            logger.info("Waiting for in-flight load of {}", key);
+            try {
+                return existing.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw e;
+            }
+        }
+        try {
+            Object value = load.get();
+            future.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    /**
+     * Schedules a background reload when the entry expires within the refresh-ahead window.
+     */
+    private void refreshIfExpiring(Object key, long expirationTime, Supplier<Object> load) {
+        if (refresher == null
+                || expirationTime - System.currentTimeMillis() > refreshAheadMillis
+                || !refreshing.add(key)) {
+            return;
+        }
+        logger.info("Refreshing {} ahead of expiry", key);
+        try {
+            refresher.execute(() -> {
+                try {
+                    loadOnce(key, load);
+                } catch (RuntimeException e) {
+                    logger.warn("Refresh-ahead of {} failed", key, e);
+                } finally {
+                    refreshing.remove(key);
+                }
+            });
+        } catch (RuntimeException e) {
+            refreshing.remove(key);
+            logger.warn("Could not schedule refresh-ahead of {}", key, e);
+        }
+    }
+
+    /**
+     * Caches the complete list of todos unless a write was applied since it was loaded.
+     *
+     * @param todos List of todos to cache
+     * @param version the value of {@link #getListVersion()} read before loading the list
+     */
+    public void cacheTodos(List<Todo> todos, long version) {
+        synchronized (listLock) {
+            if (listVersion.get() != version) {
+                logger.info("Skipped caching {} todos loaded before a write", todos.size());
+                return;
+            }
+            store(ALL_TODOS_KEY, todos);
+        }
         logger.info("Cached {} todos", todos.size());
     }
 
+    /**
+     * Gets the version of the cached list, to be read before loading the list from storage.
+     * Writes bump it only once the cached list reflects them, so a list read
+     * after this call is at least as new as the returned version.
+     *
+     * @return the current list version
+     */
+    public long getListVersion() {
+        return listVersion.get();
+    }
+
     /**
      * Retrieves the cached list of all todos.
      *
@@ -61,10 +301,10 @@ public void cacheTodos(List<Todo> todos) {
      */
     @SuppressWarnings("unchecked")
     public List<Todo> getCachedTodos() {
-        Element element = cache.get(ALL_TODOS_KEY);
-        if (element != null) {
+        Cached cached = lookup(ALL_TODOS_KEY);
+        if (cached != null) {
             logger.info("Cache hit for todos list");
-            return (List<Todo>) element.getObjectValue();
+            return (List<Todo>) cached.value;
         }
         logger.info("Cache miss for todos list");
         return null;
@@ -75,17 +315,99 @@ public List<Todo> getCachedTodos() {
      * This method also clears any individual todo items.
      */
     public void invalidateCache() {
-        cache.removeAll();
+        synchronized (listLock) {
+            cache.removeAll();
+            if (offHeap != null) {
+                offHeap.clear();
+            }
+            listVersion.incrementAndGet();
+        }
         logger.info("Cache fully invalidated");
     }
 
+    /**
+     * Applies a created or updated todo to the cache: the todo's own entry is
+     * replaced, and the cached list, if present, gets the todo replaced or
+     * inserted in ID order. No other entries are touched.
+     *
+     * @param todo The todo that was written to storage
+     */
+    @SuppressWarnings("unchecked")
+    public void applyUpsert(Todo todo) {
+        // Under listLock so that a loader holding an older version cannot
+        // write a stale copy back between this store and the version bump
+        synchronized (listLock) {
+            store(todo.getId(), todo);
+            Cached cached = lookup(ALL_TODOS_KEY);
+            if (cached != null) {
+                List<Todo> todos = new ArrayList<>((List<Todo>) cached.value);
+                int position = findPosition(todos, todo.getId());
+                if (position >= 0) {
+                    todos.set(position, todo);
+                } else {
+                    todos.add(-position - 1, todo);
+                }
+                store(ALL_TODOS_KEY, todos);
+            }
+            listVersion.incrementAndGet();
+        }
+        logger.info("Applied write of todo with id {} to cache", todo.getId());
+    }
+
+    /**
+     * Applies a deleted todo to the cache: the todo's own entry is removed,
+     * and it is dropped from the cached list, if present.
+     *
+     * @param id The ID of the todo that was deleted from storage
+     */
+    @SuppressWarnings("unchecked")
+    public void applyDelete(Long id) {
+        synchronized (listLock) {
+            evict(id);
+            Cached cached = lookup(ALL_TODOS_KEY);
+            if (cached != null) {
+                List<Todo> todos = (List<Todo>) cached.value;
+                int position = findPosition(todos, id);
+                if (position >= 0) {
+                    todos = new ArrayList<>(todos);
+                    todos.remove(position);
+                    store(ALL_TODOS_KEY, todos);
+                }
+            }
+            listVersion.incrementAndGet();
+        }
+        logger.info("Applied delete of todo with id {} to cache", id);
+    }
+
+    /**
+     * Binary searches a list ordered by ID.
+     *
+     * @return the index of the todo, or (-(insertion point) - 1) if absent
+     */
+    private static int findPosition(List<Todo> todos, Long id) {
+        int low = 0;
+        int high = todos.size() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = todos.get(mid).getId().compareTo(id);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
     /**
      * Caches a single todo item.
      *
      * @param todo The todo to cache
      */
     public void cacheTodo(Todo todo) {
-        cache.put(new Element(todo.getId(), todo));
+        store(todo.getId(), todo);
         logger.info("Cached todo with id: {}", todo.getId());
     }
 
@@ -96,10 +418,10 @@ public void cacheTodo(Todo todo) {
      * @return The cached todo, or null if not found in cache
      */
     public Todo getCachedTodo(Long id) {
-        Element element = cache.get(id);
-        if (element != null) {
+        Cached cached = lookup(id);
+        if (cached != null) {
             logger.info("Cache hit for todo id: {}", id);
-            return (Todo) element.getObjectValue();
+            return (Todo) cached.value;
         }
         logger.info("Cache miss for todo id: {}", id);
         return null;
@@ -111,7 +433,209 @@ public Todo getCachedTodo(Long id) {
      * @param id The ID of the todo to remove from cache
      */
     public void removeTodoFromCache(Long id) {
-        cache.remove(id);
+        evict(id);
         logger.info("Removed todo with id {} from cache", id);
     }
+
+    /**
+     * Gets occupancy and hit statistics of the off-heap tier.
+     *
+     * @return the statistics, or null if the off-heap tier is disabled
+     */
+    public OffHeapStats getOffHeapStats() {
+        return offHeap != null ? offHeap.getStats() : null;
+    }
+
+    /**
+     * Starts warm-start snapshots: loads the last snapshot in the background
+     * and, if configured, saves one periodically. A final snapshot is saved on
+     * {@link #close()}. Does nothing if cache.snapshotPath is empty.
+     *
+     * @param storageFingerprint supplies the current TodoStorage fingerprint
+     */
+    public synchronized void enableSnapshots(LongSupplier storageFingerprint) {
+        if (snapshotPath == null || snapshotter != null) {
+            return;
+        }
+        this.storageFingerprint = storageFingerprint;
+        this.snapshotter = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "todo-cache-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        snapshotter.execute(this::loadSnapshot);
+        if (snapshotIntervalSeconds > 0) {
+            snapshotter.scheduleWithFixedDelay(this::saveSnapshot,
+                snapshotIntervalSeconds, snapshotIntervalSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Writes the cached list and the IDs of individually cached todos.
+     * The list's fingerprint is stored with it for validation on load.
+     */
+    @SuppressWarnings("unchecked")
+    private void saveSnapshot() {
+        Cached cached = lookup(ALL_TODOS_KEY);
+        if (cached == null) {
+            logger.info("Todos list not cached, skipped cache snapshot");
+            return;
+        }
+        List<Todo> todos = (List<Todo>) cached.value;
+        List<Long> ids = new ArrayList<>();
+        for (Object key : offHeap != null ? offHeap.keys() : (List<Object>) cache.getKeys()) {
+            if (key instanceof Long) {
+                ids.add((Long) key);
+            }
+        }
+
+        Path tmp = snapshotPath.resolveSibling(snapshotPath.getFileName() + ".tmp");
+        try {
+            Files.createDirectories(snapshotPath.getParent());
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                byte[] bytes = codec.encode(todos);
+                out.writeInt(SNAPSHOT_MAGIC);
+                out.writeInt(SNAPSHOT_VERSION);
+                out.writeUTF(codec.name());
+                out.writeLong(TodoFingerprint.of(todos));
+                out.writeInt(bytes.length);
+                out.write(bytes);
+                out.writeInt(ids.size());
+                for (Long id : ids) {
+                    out.writeLong(id);
+                }
+            }
+            Files.move(tmp, snapshotPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            logger.info("Saved cache snapshot of {} todos and {} cached ids to {}",
+                todos.size(), ids.size(), snapshotPath);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Failed to save cache snapshot to {}", snapshotPath, e);
+        }
+    }
+
+    /**
+     * Applies the last snapshot unless it is stale or a write already reached the cache.
+     */
+    @SuppressWarnings("unchecked")
+    private void loadSnapshot() {
+        if (!Files.exists(snapshotPath)) {
+            logger.info("No cache snapshot at {}", snapshotPath);
+            return;
+        }
+        long version = listVersion.get();
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(snapshotPath)))) {
+            if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) {
+                logger.warn("Rejected cache snapshot {} with unsupported format", snapshotPath);
+                return;
+            }
+            CacheValueCodec snapshotCodec = CacheValueCodec.forName(in.readUTF());
+            long fingerprint = in.readLong();
+            if (fingerprint != storageFingerprint.getAsLong()) {
+                logger.info("Rejected stale cache snapshot {}", snapshotPath);
+                return;
+            }
+            byte[] bytes = new byte[in.readInt()];
+            in.readFully(bytes);
+            List<Todo> todos = (List<Todo>) snapshotCodec.decode(bytes);
+            if (TodoFingerprint.of(todos) != fingerprint) {
+                logger.warn("Rejected corrupt cache snapshot {}", snapshotPath);
+                return;
+            }
+            int idCount = in.readInt();
+            List<Todo> hot = new ArrayList<>(idCount);
+            for (int i = 0; i < idCount; i++) {
+                int position = findPosition(todos, in.readLong());
+                if (position >= 0) {
+                    hot.add(todos.get(position));
+                }
+            }
+
+            synchronized (listLock) {
+                if (listVersion.get() != version) {
+                    logger.info("Skipped cache snapshot, writes reached the cache first");
+                    return;
+                }
+                store(ALL_TODOS_KEY, todos);
+                for (Todo todo : hot) {
+                    store(todo.getId(), todo);
+                }
+            }
+            logger.info("Warmed cache from snapshot with {} todos and {} cached ids", todos.size(), hot.size());
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Failed to load cache snapshot {}", snapshotPath, e);
+        }
+    }
+
+    /**
+     * Saves a final snapshot if enabled and stops background threads.
+     */
+    public void close() {
+        if (refresher != null) {
+            refresher.shutdown();
+        }
+        synchronized (this) {
+            if (snapshotter != null) {
+                snapshotter.shutdownNow();
+                try {
+                    snapshotter.awaitTermination(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                saveSnapshot();
+            }
+        }
+        if (offHeap != null) {
+            logger.info("Off-heap cache tier at close: {}", offHeap.getStats());
+        }
+    }
+
+    /**
+     * Looks a key up in the off-heap tier when enabled, otherwise in EhCache.
+     */
+    private Cached lookup(Object key) {
+        if (offHeap == null) {
+            Element element = cache.get(key);
+            return element != null ? new Cached(unwrap(element.getObjectValue()), element.getExpirationTime()) : null;
+        }
+        OffHeapStore.Hit hit = offHeap.get(key);
+        return hit != null ? new Cached(codec.decode(hit.bytes), hit.expirationTime) : null;
+    }
+
+    private void store(Object key, Object value) {
+        if (offHeap == null) {
+            cache.put(new Element(key, new CodecValue(codec, value)));
+        } else if (!offHeap.put(key, codec.encode(value), System.currentTimeMillis() + offHeapTtlMillis)) {
+            logger.warn("Value for {} does not fit in the off-heap cache tier", key);
+        }
+    }
+
+    private void evict(Object key) {
+        if (offHeap == null) {
+            cache.remove(key);
+        } else {
+            offHeap.remove(key);
+        }
+    }
+
+    /**
+     * Unwraps an EhCache value; entries persisted before values were wrapped are returned as is.
+     */
+    private static Object unwrap(Object value) {
+        return value instanceof CodecValue ? ((CodecValue) value).getValue() : value;
+    }
+
+    /**
+     * A cache hit with the time its entry expires.
+     */
+    private static final class Cached {
+        final Object value;
+        final long expirationTime;
+
+        Cached(Object value, long expirationTime) {
+            this.value = value;
+            this.expirationTime = expirationTime;
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,57 @@
+package com.example.todo.service;
+
+import java.util.Date;
+import java.util.List;
+
+import com.example.todo.model.Todo;
+
+/**
+ * Content hashes of todos. A set of todos is fingerprinted as the sum of
+ * the hashes of its members, so the fingerprint does not depend on order
+ * and can be kept up to date by adding and subtracting single todos.
+ */
+final class TodoFingerprint {
+
+    private TodoFingerprint() {
+    }
+
+    /**
+     * Hashes every field of a todo.
+     */
+    static long of(Todo todo) {
+        long h = mix(todo.getId() == null ? 0 : todo.getId());
+        h = mix(h * 31 + hash(todo.getTitle()));
+        h = mix(h * 31 + hash(todo.getDescription()));
+        h = mix(h * 31 + (todo.isCompleted() ? 1 : 2));
+        h = mix(h * 31 + time(todo.getCreatedAt()));
+        return mix(h * 31 + time(todo.getCompletedAt()));
+    }
+
+    /**
+     * Fingerprints a set of todos.
+     */
+    static long of(List<Todo> todos) {
+        long sum = 0;
+        for (Todo todo : todos) {
+            sum += of(todo);
+        }
+        return sum;
+    }
+
+    private static long hash(String value) {
+        return value == null ? 0x9E3779B97F4A7C15L : value.hashCode();
+    }
+
+    private static long time(Date date) {
+        return date == null ? Long.MIN_VALUE : date.getTime();
+    }
+
+    /**
+     * SplitMix64 finalizer.
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
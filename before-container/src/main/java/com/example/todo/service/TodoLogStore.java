@@ -0,0 +1,671 @@
+package com.example.todo.service;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32;
+
+import com.example.todo.model.Todo;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Append-only, log-structured todo store.
+ * Every write or delete appends one checksummed record, so a single mutation
+ * costs O(1) I/O. An in-memory index maps each ID to the offset of its latest
+ * record. A background task compacts the log once dead records dominate it.
+ *
+ * <p>File layout: an 8 byte header (magic, version) followed by records of
+ * [int bodyLength][int crc32(body)][body], where body is
+ * [byte type][long id][JSON payload for PUT records]. A torn or corrupt tail
+ * left by a crash is truncated when the log is opened.
+ */
+public class TodoLogStore implements TodoStore {
+    private static final Logger logger = LoggerFactory.getLogger(TodoLogStore.class);
+
+    /**
+     * When appended records are forced to disk.
+     */
+    public enum FsyncPolicy {
+        /** Force after every write before it returns. */
+        ALWAYS,
+        /** Concurrent writers wait for one shared force that covers all of them. */
+        GROUP,
+        /** Force periodically in the background; a crash may lose the last interval. */
+        INTERVAL
+    }
+
+    private static final int MAGIC = 0x544C4F47; // "TLOG"
+    private static final int VERSION = 1;
+    private static final int FILE_HEADER_SIZE = 8;
+    private static final int RECORD_HEADER_SIZE = 8;
+    private static final int BODY_HEADER_SIZE = 9;
+    private static final int MAX_BODY_SIZE = 16 * 1024 * 1024;
+    private static final long MIN_COMPACTION_BYTES = 1024 * 1024;
+    private static final byte PUT = 1;
+    private static final byte DELETE = 2;
+
+    private final Path path;
+    private final ObjectMapper objectMapper;
+    private final FsyncPolicy fsyncPolicy;
+    private final double compactionGarbageRatio;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Object compactionLock = new Object();
+    private final ScheduledExecutorService scheduler;
+
+    // Guarded by lock
+    private FileChannel channel;
+    private Map<Long, RecordRef> index = new HashMap<>();
+    private long writeOffset;
+    private long liveBytes;
+    private long appendedBytes;
+
+    // Guarded by syncMonitor
+    private final Object syncMonitor = new Object();
+    private long durableBytes;
+    private boolean syncing;
+
+    private volatile boolean closed;
+
+    /**
+     * Opens or creates the log, recovering the index from its records.
+     *
+     * @param path the log file
+     * @param objectMapper mapper used for record payloads
+     * @param fsyncPolicy when appended records are forced to disk
+     * @param fsyncIntervalMillis background force interval for the INTERVAL policy
+     * @param compactionIntervalSeconds how often to check whether compaction is due
+     * @param compactionGarbageRatio fraction of dead bytes that triggers compaction
+     * @throws IOException if the log cannot be opened
+     */
+    public TodoLogStore(Path path, ObjectMapper objectMapper, FsyncPolicy fsyncPolicy,
+                        long fsyncIntervalMillis, long compactionIntervalSeconds,
+                        double compactionGarbageRatio) throws IOException {
+        this.path = path;
+        this.objectMapper = objectMapper;
+        this.fsyncPolicy = fsyncPolicy;
+        this.compactionGarbageRatio = compactionGarbageRatio;
+        this.channel = FileChannel.open(path,
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        recover();
+
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "todo-log-maintenance");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::compactIfNeeded,
+            compactionIntervalSeconds, compactionIntervalSeconds, TimeUnit.SECONDS);
+        if (fsyncPolicy == FsyncPolicy.INTERVAL) {
+            scheduler.scheduleWithFixedDelay(this::syncQuietly,
+                fsyncIntervalMillis, fsyncIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+        logger.info("Opened todo log {} with {} todos, fsync policy {}", path, index.size(), fsyncPolicy);
+    }
+
+    /**
+     * Checks whether the log file exists and holds at least its header.
+     *
+     * @param path the log file
+     * @return true if a log was previously created at the path
+     */
+    public static boolean exists(Path path) {
+        try {
+            return Files.size(path) >= FILE_HEADER_SIZE;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public List<Todo> readAll() throws IOException {
+        lock.readLock().lock();
+        try {
+            List<Todo> todos = new ArrayList<>(index.size());
+            scan(channel, FILE_HEADER_SIZE, writeOffset, (offset, type, id, data, start, size) -> {
+                RecordRef ref = index.get(id);
+                if (type == PUT && ref != null && ref.offset == offset) {
+                    todos.add(decode(data, start, size));
+                }
+            });
+            todos.sort(Comparator.comparing(Todo::getId));
+            return todos;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Reads a single todo with one positional read.
+     *
+     * @param id the ID of the todo
+     * @return the todo, or null if it is not stored
+     * @throws IOException if the record cannot be read
+     */
+    public Todo read(long id) throws IOException {
+        lock.readLock().lock();
+        try {
+            RecordRef ref = index.get(id);
+            if (ref == null) {
+                return null;
+            }
+            ByteBuffer record = ByteBuffer.allocate(ref.size);
+            readFully(channel, record, ref.offset);
+            return decode(record.array(), 0, ref.size);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void write(Todo todo) throws IOException {
+        append(Collections.singletonList(encode(PUT, todo.getId(), objectMapper.writeValueAsBytes(todo))));
+    }
+
+    @Override
+    public void delete(long id) throws IOException {
+        append(Collections.singletonList(encode(DELETE, id, new byte[0])));
+    }
+
+    /**
+     * Appends the whole batch with one write and covers it with one force.
+     */
+    @Override
+    public void apply(List<TodoMutation> mutations) throws IOException {
+        List<ByteBuffer> records = new ArrayList<>(mutations.size());
+        for (TodoMutation mutation : mutations) {
+            records.add(mutation.isDelete()
+                ? encode(DELETE, mutation.getId(), new byte[0])
+                : encode(PUT, mutation.getId(), objectMapper.writeValueAsBytes(mutation.getTodo())));
+        }
+        append(records);
+    }
+
+    @Override
+    public void replaceAll(List<Todo> todos) throws IOException {
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        lock.writeLock().lock();
+        try {
+            checkOpen();
+            Map<Long, RecordRef> newIndex = new HashMap<>();
+            long offset;
+            try (FileChannel out = openTemp(tmp)) {
+                offset = FILE_HEADER_SIZE;
+                for (Todo todo : todos) {
+                    ByteBuffer record = encode(PUT, todo.getId(), objectMapper.writeValueAsBytes(todo));
+                    int size = record.remaining();
+                    writeFully(out, record, offset);
+                    newIndex.put(todo.getId(), new RecordRef(offset, size));
+                    offset += size;
+                }
+                out.force(true);
+            }
+            swapIn(tmp, newIndex, offset);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Rewrites the log with only live records if dead records exceed the
+     * configured ratio. Live records are copied without blocking writers;
+     * only the tail appended meanwhile is copied under the write lock.
+     *
+     * @throws IOException if the compacted log cannot be written
+     */
+    public void compact() throws IOException {
+        synchronized (compactionLock) {
+            compactLive();
+        }
+    }
+
+    private void compactLive() throws IOException {
+        Path tmp = path.resolveSibling(path.getFileName() + ".compact");
+        Map<Long, RecordRef> snapshot;
+        long snapshotEnd;
+        FileChannel source;
+        lock.readLock().lock();
+        try {
+            checkOpen();
+            snapshot = new HashMap<>(index);
+            snapshotEnd = writeOffset;
+            source = channel;
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        try (FileChannel out = openTemp(tmp)) {
+            Map<Long, RecordRef> newIndex = new HashMap<>(snapshot.size() * 2);
+            long[] outOffset = {FILE_HEADER_SIZE};
+            scan(source, FILE_HEADER_SIZE, snapshotEnd, (offset, type, id, data, start, size) -> {
+                RecordRef ref = snapshot.get(id);
+                if (type == PUT && ref != null && ref.offset == offset) {
+                    writeFully(out, ByteBuffer.wrap(data, start, size), outOffset[0]);
+                    newIndex.put(id, new RecordRef(outOffset[0], size));
+                    outOffset[0] += size;
+                }
+            });
+
+            lock.writeLock().lock();
+            try {
+                checkOpen();
+                if (channel != source) {
+                    // replaceAll swapped the log underneath us; the copy is stale
+                    Files.deleteIfExists(tmp);
+                    return;
+                }
+                // Replay whatever was appended while the live records were copied
+                scan(channel, snapshotEnd, writeOffset, (offset, type, id, data, start, size) -> {
+                    writeFully(out, ByteBuffer.wrap(data, start, size), outOffset[0]);
+                    if (type == PUT) {
+                        newIndex.put(id, new RecordRef(outOffset[0], size));
+                    } else {
+                        newIndex.remove(id);
+                    }
+                    outOffset[0] += size;
+                });
+                out.force(true);
+                long before = writeOffset;
+                swapIn(tmp, newIndex, outOffset[0]);
+                logger.info("Compacted todo log from {} to {} bytes", before, writeOffset);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        // Not shutdownNow: interrupting a thread in FileChannel I/O closes the channel
+        scheduler.shutdown();
+        lock.writeLock().lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            channel.force(true);
+            channel.close();
+            logger.info("Closed todo log {}", path);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void append(List<ByteBuffer> records) throws IOException {
+        ByteBuffer batch;
+        if (records.size() == 1) {
+            batch = records.get(0).duplicate();
+        } else {
+            int total = 0;
+            for (ByteBuffer record : records) {
+                total += record.remaining();
+            }
+            batch = ByteBuffer.allocate(total);
+            for (ByteBuffer record : records) {
+                batch.put(record.duplicate());
+            }
+            batch.flip();
+        }
+
+        long appendedThrough;
+        lock.writeLock().lock();
+        try {
+            checkOpen();
+            writeFully(channel, batch, writeOffset);
+            for (ByteBuffer record : records) {
+                int size = record.remaining();
+                long id = record.getLong(RECORD_HEADER_SIZE + 1);
+                byte type = record.get(RECORD_HEADER_SIZE);
+                RecordRef previous = type == PUT
+                    ? index.put(id, new RecordRef(writeOffset, size))
+                    : index.remove(id);
+                if (previous != null) {
+                    liveBytes -= previous.size;
+                }
+                if (type == PUT) {
+                    liveBytes += size;
+                }
+                writeOffset += size;
+                appendedBytes += size;
+            }
+            appendedThrough = appendedBytes;
+            if (fsyncPolicy == FsyncPolicy.ALWAYS) {
+                channel.force(false);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (fsyncPolicy == FsyncPolicy.GROUP) {
+            awaitDurable(appendedThrough);
+        }
+    }
+
+    /**
+     * Group commit: the first waiter forces the channel for everyone appended
+     * so far, later waiters either ride along or start the next force.
+     */
+    private void awaitDurable(long target) throws IOException {
+        while (true) {
+            synchronized (syncMonitor) {
+                while (durableBytes < target && syncing) {
+                    try {
+                        syncMonitor.wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new InterruptedIOException("Interrupted waiting for todo log fsync");
+                    }
+                }
+                if (durableBytes >= target) {
+                    return;
+                }
+                syncing = true;
+            }
+            syncOnce();
+        }
+    }
+
+    private void syncOnce() throws IOException {
+        long covered = 0;
+        try {
+            FileChannel current;
+            lock.readLock().lock();
+            try {
+                checkOpen();
+                covered = appendedBytes;
+                current = channel;
+            } finally {
+                lock.readLock().unlock();
+            }
+            try {
+                current.force(false);
+            } catch (ClosedChannelException e) {
+                // Swapped out by compaction, which forces the new file itself
+                covered = 0;
+                checkOpen();
+            }
+        } finally {
+            synchronized (syncMonitor) {
+                syncing = false;
+                durableBytes = Math.max(durableBytes, covered);
+                syncMonitor.notifyAll();
+            }
+        }
+    }
+
+    private void syncQuietly() {
+        try {
+            synchronized (syncMonitor) {
+                if (syncing) {
+                    return;
+                }
+                syncing = true;
+            }
+            syncOnce();
+        } catch (IOException e) {
+            logger.error("Failed to fsync todo log", e);
+        }
+    }
+
+    private void compactIfNeeded() {
+        long total;
+        long live;
+        lock.readLock().lock();
+        try {
+            if (closed) {
+                return;
+            }
+            total = writeOffset - FILE_HEADER_SIZE;
+            live = liveBytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+        long garbage = total - live;
+        if (garbage < MIN_COMPACTION_BYTES || garbage < total * compactionGarbageRatio) {
+            return;
+        }
+        try {
+            compact();
+        } catch (IOException e) {
+            logger.error("Failed to compact todo log", e);
+        }
+    }
+
+    /**
+     * Atomically replaces the log with a fully written temp file. Caller holds the write lock.
+     */
+    private void swapIn(Path tmp, Map<Long, RecordRef> newIndex, long newWriteOffset) throws IOException {
+        Files.move(tmp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        syncDirectory();
+        channel.close();
+        channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        index = newIndex;
+        writeOffset = newWriteOffset;
+        liveBytes = 0;
+        for (RecordRef ref : newIndex.values()) {
+            liveBytes += ref.size;
+        }
+        synchronized (syncMonitor) {
+            durableBytes = appendedBytes;
+            syncMonitor.notifyAll();
+        }
+    }
+
+    private void syncDirectory() {
+        // Makes the rename itself durable; not supported on every platform
+        try (FileChannel dir = FileChannel.open(path.toAbsolutePath().getParent(), StandardOpenOption.READ)) {
+            dir.force(true);
+        } catch (IOException e) {
+            logger.debug("Directory fsync not supported for {}", path, e);
+        }
+    }
+
+    private void recover() throws IOException {
+        if (channel.size() < FILE_HEADER_SIZE) {
+            ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_SIZE);
+            header.putInt(MAGIC).putInt(VERSION).flip();
+            channel.truncate(0);
+            writeFully(channel, header, 0);
+            channel.force(true);
+            writeOffset = FILE_HEADER_SIZE;
+            return;
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_SIZE);
+        readFully(channel, header, 0);
+        if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+            throw new IOException("Not a todo log (version " + VERSION + "): " + path);
+        }
+
+        long fileSize = channel.size();
+        long end = scan(channel, FILE_HEADER_SIZE, fileSize, (offset, type, id, data, start, size) -> {
+            RecordRef previous = type == PUT ? index.put(id, new RecordRef(offset, size)) : index.remove(id);
+            if (previous != null) {
+                liveBytes -= previous.size;
+            }
+            if (type == PUT) {
+                liveBytes += size;
+            }
+        });
+        if (end < fileSize) {
+            logger.warn("Truncating {} bytes of torn or corrupt records at the end of {}", fileSize - end, path);
+            channel.truncate(end);
+            channel.force(true);
+        }
+        writeOffset = end;
+    }
+
+    /**
+     * Visits every intact record in [from, to) and returns the offset just past the last one.
+     */
+    private long scan(FileChannel source, long from, long to, RecordVisitor visitor) throws IOException {
+        LogReader reader = new LogReader(source);
+        CRC32 crc = new CRC32();
+        long offset = from;
+        while (offset < to) {
+            if (to - offset < RECORD_HEADER_SIZE || !reader.ensure(offset, RECORD_HEADER_SIZE)) {
+                break;
+            }
+            int bodyLength = reader.getInt(offset);
+            int checksum = reader.getInt(offset + 4);
+            int size = RECORD_HEADER_SIZE + bodyLength;
+            if (bodyLength < BODY_HEADER_SIZE || bodyLength > MAX_BODY_SIZE
+                    || offset + size > to || !reader.ensure(offset, size)) {
+                break;
+            }
+            int start = reader.indexOf(offset);
+            crc.reset();
+            crc.update(reader.array(), start + RECORD_HEADER_SIZE, bodyLength);
+            if ((int) crc.getValue() != checksum) {
+                break;
+            }
+            byte type = reader.array()[start + RECORD_HEADER_SIZE];
+            long id = reader.getLong(offset + RECORD_HEADER_SIZE + 1);
+            visitor.visit(offset, type, id, reader.array(), start, size);
+            offset += size;
+        }
+        return offset;
+    }
+
+    private Todo decode(byte[] data, int start, int size) throws IOException {
+        int payloadStart = start + RECORD_HEADER_SIZE + BODY_HEADER_SIZE;
+        return objectMapper.readValue(data, payloadStart, start + size - payloadStart, Todo.class);
+    }
+
+    private static ByteBuffer encode(byte type, long id, byte[] payload) {
+        int bodyLength = BODY_HEADER_SIZE + payload.length;
+        if (bodyLength > MAX_BODY_SIZE) {
+            throw new IllegalArgumentException("Todo " + id + " is too large to store");
+        }
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_SIZE + bodyLength);
+        record.putInt(bodyLength).putInt(0).put(type).putLong(id).put(payload);
+        CRC32 crc = new CRC32();
+        crc.update(record.array(), RECORD_HEADER_SIZE, bodyLength);
+        record.putInt(4, (int) crc.getValue());
+        record.flip();
+        return record;
+    }
+
+    private static FileChannel openTemp(Path tmp) throws IOException {
+        FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_SIZE);
+        header.putInt(MAGIC).putInt(VERSION).flip();
+        writeFully(out, header, 0);
+        return out;
+    }
+
+    private static void writeFully(FileChannel target, ByteBuffer buffer, long position) throws IOException {
+        long offset = position;
+        while (buffer.hasRemaining()) {
+            offset += target.write(buffer, offset);
+        }
+    }
+
+    private static void readFully(FileChannel source, ByteBuffer buffer, long position) throws IOException {
+        long offset = position;
+        while (buffer.hasRemaining()) {
+            int read = source.read(buffer, offset);
+            if (read < 0) {
+                throw new IOException("Unexpected end of todo log at " + offset);
+            }
+            offset += read;
+        }
+    }
+
+    private void checkOpen() throws IOException {
+        if (closed) {
+            throw new ClosedChannelException();
+        }
+    }
+
+    /**
+     * Location of the latest record for an ID.
+     */
+    private static final class RecordRef {
+        private final long offset;
+        private final int size;
+
+        private RecordRef(long offset, int size) {
+            this.offset = offset;
+            this.size = size;
+        }
+    }
+
+    @FunctionalInterface
+    private interface RecordVisitor {
+        void visit(long offset, byte type, long id, byte[] data, int start, int size) throws IOException;
+    }
+
+    /**
+     * Buffered positional reader, independent of the channel's own position.
+     */
+    private static final class LogReader {
+        private static final int BUFFER_SIZE = 64 * 1024;
+        private final FileChannel source;
+        private ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        private long bufferStart;
+        private int bufferLength;
+
+        private LogReader(FileChannel source) {
+            this.source = source;
+        }
+
+        /**
+         * Makes [position, position + length) addressable, returning false at end of file.
+         */
+        private boolean ensure(long position, int length) throws IOException {
+            if (position >= bufferStart && position + length <= bufferStart + bufferLength) {
+                return true;
+            }
+            if (length > buffer.capacity()) {
+                buffer = ByteBuffer.allocate(length);
+            }
+            buffer.clear();
+            int total = 0;
+            while (buffer.hasRemaining()) {
+                int read = source.read(buffer, position + total);
+                if (read < 0) {
+                    break;
+                }
+                total += read;
+            }
+            bufferStart = position;
+            bufferLength = total;
+            return total >= length;
+        }
+
+        private int indexOf(long position) {
+            return (int) (position - bufferStart);
+        }
+
+        private byte[] array() {
+            return buffer.array();
+        }
+
+        private int getInt(long position) {
+            return buffer.getInt(indexOf(position));
+        }
+
+        private long getLong(long position) {
+            return buffer.getLong(indexOf(position));
+        }
+    }
+}
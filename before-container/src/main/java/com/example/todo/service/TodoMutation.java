@@ -0,0 +1,53 @@
+package com.example.todo.service;
+
+import com.example.todo.model.Todo;
+
+/**
+ * A single pending change to a TodoStore: a put of a whole todo or a delete by ID.
+ */
+public final class TodoMutation {
+    private final long id;
+    private final Todo todo;
+
+    private TodoMutation(long id, Todo todo) {
+        this.id = id;
+        this.todo = todo;
+    }
+
+    /**
+     * Creates an insert-or-replace of a todo.
+     *
+     * @param todo the todo to store, with its ID set
+     * @return the mutation
+     */
+    public static TodoMutation put(Todo todo) {
+        return new TodoMutation(todo.getId(), todo);
+    }
+
+    /**
+     * Creates a removal of a todo.
+     *
+     * @param id the ID of the todo to remove
+     * @return the mutation
+     */
+    public static TodoMutation delete(long id) {
+        return new TodoMutation(id, null);
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * Gets the todo to store.
+     *
+     * @return the todo, or null for a delete
+     */
+    public Todo getTodo() {
+        return todo;
+    }
+
+    public boolean isDelete() {
+        return todo == null;
+    }
+}
@@ -2,13 +2,18 @@
 
 import java.io.File;
 import java.io.IOException;
-import java.util.ArrayList;
+import java.io.InputStream;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
 
 import com.example.todo.model.Todo;
-import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -16,11 +21,35 @@
 /**
  * Handles persistence of Todo items to the file system.
  * Manages CRUD operations for todos using file-based storage.
+ * All todos are also kept in a resident index keyed by ID, so reads never
+ * go back to the file.
+ *
+ * <p>A write updates the index and submits the mutation to a TodoWriteQueue
+ * under one of LOCK_STRIPES striped locks, so writes to the same ID reach
+ * the index and the queue in the same order. The stripe is released before
+ * the caller waits for the queue's writer thread, which applies everything
+ * pending as one batch with a single durable write; the queue's FIFO order
+ * keeps the store in the index's order. A write that fails is undone in
+ * the index, and the caller only sees success once it is durable.
+ * Replacing all todos excludes every other writer.
  */
 public class TodoStorage {
     private static final Logger logger = LoggerFactory.getLogger(TodoStorage.class);
     private final String storagePath;
     private final ObjectMapper objectMapper;
+    private final TodoStore store;
+    private final TodoWriteQueue writeQueue;
+    private final ReentrantReadWriteLock indexLock = new ReentrantReadWriteLock();
+    // Guarded by indexLock; holds private copies so callers cannot mutate indexed todos
+    private LongTodoMap index;
+    // Guarded by indexLock; TodoFingerprint of everything in the index
+    private long fingerprint;
+    private static final int LOCK_STRIPES = 64;
+    private final Object[] stripes = new Object[LOCK_STRIPES];
+    // Per-ID writes hold the read lock, saveTodos holds the write lock
+    private final ReentrantReadWriteLock replaceLock = new ReentrantReadWriteLock();
+    // Guarded by indexLock; the newest write per ID that is not yet durable
+    private final Map<Long, IndexedWrite> pendingWrites = new HashMap<>();
     private static AtomicLong idGenerator = new AtomicLong(1);
     // This is potentially problematic as it doesn't account for existing IDs in the storage
 
@@ -31,14 +60,28 @@ public class TodoStorage {
      * @throws RuntimeException if initialization fails
      */
     public TodoStorage() {
-        Properties props = new Properties();
+        this(loadConfig());
+    }
+
+    /**
+     * Initializes the storage system from the given configuration.
+     * storage.format selects the on-disk format: "log" (default) for the
+     * append-only record log, "mapped" for the memory-mapped fixed-layout
+     * file, or "json" for the original whole-file JSON array.
+     *
+     * @param props storage configuration
+     * @throws RuntimeException if initialization fails
+     */
+    public TodoStorage(Properties props) {
         try {
-            props.load(getClass().getClassLoader().getResourceAsStream("config.properties"));
             String relativePath = props.getProperty("storage.path");
             
             // Resolve the path relative to the user.dir (project root)
             this.storagePath = new File(System.getProperty("user.dir"), relativePath).getAbsolutePath();
             this.objectMapper = new ObjectMapper();
+            for (int i = 0; i < LOCK_STRIPES; i++) {
+                stripes[i] = new Object();
+            }
             
             // Create storage directory if it doesn't exist
             File storageDir = new File(storagePath).getParentFile();
@@ -46,60 +89,161 @@ public TodoStorage() {
                 storageDir.mkdirs();
             }
             
+            this.store = openStore(props);
+            this.writeQueue = new TodoWriteQueue(store,
+                Integer.parseInt(props.getProperty("storage.writeQueueCapacity", "4096")),
+                Integer.parseInt(props.getProperty("storage.writeBatchSize", "512")));
             logger.info("Using storage path: {}", 
                 storagePath);
                 
+            List<Todo> todos = store.readAll();
+            this.index = buildIndex(todos);
+            this.fingerprint = TodoFingerprint.of(todos);
+            logger.info("Indexed {} todos", index.size());
+
             // Initialize ID generator from existing data
             initializeIdGenerator();
+        } catch (IOException e) {
+            logger.error("Failed to open storage", e);
+            throw new RuntimeException("Failed to initialize storage", e);
+        }
+    }
+
+    private static Properties loadConfig() {
+        Properties props = new Properties();
+        try (InputStream in = TodoStorage.class.getClassLoader().getResourceAsStream("config.properties")) {
+            props.load(in);
         } catch (IOException e) {
             logger.error("Failed to load configuration", e);
             throw new RuntimeException("Failed to initialize storage", e);
         }
+        return props;
+    }
+
+    /**
+     * Opens the configured store, migrating an existing JSON file into a new log or mapped file.
+     */
+    private TodoStore openStore(Properties props) throws IOException {
+        File jsonFile = new File(storagePath);
+        String baseName = storagePath.replaceFirst("\\.json$", "");
+        String format = props.getProperty("storage.format", "log");
+        if ("json".equals(format)) {
+            return new JsonFileStore(jsonFile, objectMapper);
+        }
+
+        File storeFile;
+        boolean migrate;
+        TodoStore store;
+        if ("log".equals(format)) {
+            storeFile = new File(baseName + ".log");
+            migrate = jsonFile.exists() && !TodoLogStore.exists(storeFile.toPath());
+            store = new TodoLogStore(storeFile.toPath(), objectMapper,
+                TodoLogStore.FsyncPolicy.valueOf(props.getProperty("storage.log.fsync", "group").toUpperCase()),
+                Long.parseLong(props.getProperty("storage.log.fsyncIntervalMillis", "1000")),
+                Long.parseLong(props.getProperty("storage.log.compactionIntervalSeconds", "60")),
+                Double.parseDouble(props.getProperty("storage.log.compactionGarbageRatio", "0.5")));
+        } else if ("mapped".equals(format)) {
+            storeFile = new File(baseName + ".dat");
+            migrate = jsonFile.exists() && !MappedTodoStore.exists(storeFile.toPath());
+            store = new MappedTodoStore(storeFile.toPath(),
+                Boolean.parseBoolean(props.getProperty("storage.mapped.sync", "true")));
+        } else {
+            throw new IOException("Unknown storage.format: " + format);
+        }
+
+        if (migrate) {
+            List<Todo> todos = new JsonFileStore(jsonFile, objectMapper).readAll();
+            store.replaceAll(todos);
+            logger.info("Migrated {} todos from {} to {}", todos.size(), jsonFile, storeFile);
+        }
+        return store;
     }
     
     /**
      * Initializes the ID generator based on existing data to avoid ID conflicts.
      */
     private void initializeIdGenerator() {
-        List<Todo> existingTodos = loadTodos();
-        if (!existingTodos.isEmpty()) {
-            long maxId = existingTodos.stream()
-                .mapToLong(Todo::getId)
-                .max()
-                .orElse(0);
+        long maxId = index.maxKey();
+        if (maxId > 0) {
             idGenerator.set(maxId + 1);
             logger.info("ID generator initialized to {}", idGenerator.get());
         }
     }
 
     /**
-     * Loads all todos from storage.
+     * Loads all todos from the index, ordered by ID.
      *
-     * @return List of todos, empty list if no todos exist or if loading fails
+     * @return List of todos, empty list if no todos exist
      */
     public List<Todo> loadTodos() {
-        File file = new File(storagePath);
-        if (!file.exists()) {
-            return new ArrayList<>();
+        List<Todo> todos;
+        indexLock.readLock().lock();
+        try {
+            todos = index.values();
+        } finally {
+            indexLock.readLock().unlock();
         }
+        todos.replaceAll(TodoStorage::copy);
+        todos.sort(Comparator.comparing(Todo::getId));
+        return todos;
+    }
 
+    /**
+     * Gets a single todo by ID from the index.
+     *
+     * @param id The ID of the todo
+     * @return A copy of the todo, or null if it does not exist
+     */
+    public Todo getTodo(Long id) {
+        Todo todo;
+        indexLock.readLock().lock();
         try {
-            return objectMapper.readValue(file, new TypeReference<List<Todo>>() {});
-        } catch (IOException e) {
-            logger.error("Failed to load todos from file", e);
-            return new ArrayList<>();
+            todo = index.get(id);
+        } finally {
+            indexLock.readLock().unlock();
+        }
+        return todo == null ? null : copy(todo);
+    }
+
+    /**
+     * Gets a content fingerprint of all stored todos. Two storages holding
+     * the same todos have the same fingerprint, regardless of history.
+     *
+     * @return the fingerprint
+     */
+    public long getFingerprint() {
+        indexLock.readLock().lock();
+        try {
+            return fingerprint;
+        } finally {
+            indexLock.readLock().unlock();
         }
     }
 
     /**
-     * Saves the complete list of todos to persistent storage.
-     * This method writes the entire list of todos to a JSON file.
+     * Saves the complete list of todos to persistent storage,
+     * replacing everything stored before.
      *
      * @param todos the list of todos to save
      * @throws IOException if there is an error writing to the storage file
      */
     public void saveTodos(List<Todo> todos) throws IOException {
-        objectMapper.writeValue(new File(storagePath), todos);
+        replaceLock.writeLock().lock();
+        try {
+            store.replaceAll(todos);
+            LongTodoMap rebuilt = buildIndex(todos);
+            long rebuiltFingerprint = TodoFingerprint.of(todos);
+            indexLock.writeLock().lock();
+            try {
+                index = rebuilt;
+                fingerprint = rebuiltFingerprint;
+                pendingWrites.clear();
+            } finally {
+                indexLock.writeLock().unlock();
+            }
+        } finally {
+            replaceLock.writeLock().unlock();
+        }
     }
 
     /**
@@ -109,14 +253,19 @@ public void saveTodos(List<Todo> todos) throws IOException {
      * @return The same todo with generated ID
      */
     public Todo addTodo(Todo todo) {
-        List<Todo> todos = loadTodos();
         todo.setId(idGenerator.getAndIncrement());
-        todos.add(todo);
+        replaceLock.readLock().lock();
         try {
-            saveTodos(todos);
+            CompletableFuture<Void> done;
+            synchronized (stripe(todo.getId())) {
+                done = submit(todo.getId(), copy(todo));
+            }
+            TodoWriteQueue.await(done);
         } catch (IOException e) {
             logger.error("Failed to add todo", e);
             throw new RuntimeException("Failed to add todo", e);
+        } finally {
+            replaceLock.readLock().unlock();
         }
         return todo;
     }
@@ -127,18 +276,50 @@ public Todo addTodo(Todo todo) {
      * @param todo The todo with updated fields
      */
     public void updateTodo(Todo todo) {
-        List<Todo> todos = loadTodos();
-        for (int i = 0; i < todos.size(); i++) {
-            if (todos.get(i).getId().equals(todo.getId())) {
-                todos.set(i, todo);
-                break;
+        replaceLock.readLock().lock();
+        try {
+            CompletableFuture<Void> done;
+            synchronized (stripe(todo.getId())) {
+                done = submit(todo.getId(), copy(todo));
             }
+            TodoWriteQueue.await(done);
+        } catch (IOException e) {
+            logger.error("Failed to update todo", e);
+            throw new RuntimeException("Failed to update todo", e);
+        } finally {
+            replaceLock.readLock().unlock();
         }
+    }
+
+    /**
+     * Atomically reads, changes and writes back an existing todo, so
+     * concurrent modifications of the same todo cannot overwrite each other
+     * and a todo deleted in the meantime is not recreated.
+     *
+     * @param id The ID of the todo to modify
+     * @param changes applied to a copy of the stored todo
+     * @return The modified todo, or null if no todo has that ID
+     */
+    public Todo modifyTodo(Long id, Consumer<Todo> changes) {
+        replaceLock.readLock().lock();
         try {
-            saveTodos(todos);
+            Todo todo;
+            CompletableFuture<Void> done;
+            synchronized (stripe(id)) {
+                todo = getTodo(id);
+                if (todo == null) {
+                    return null;
+                }
+                changes.accept(todo);
+                done = submit(id, copy(todo));
+            }
+            TodoWriteQueue.await(done);
+            return todo;
         } catch (IOException e) {
             logger.error("Failed to update todo", e);
             throw new RuntimeException("Failed to update todo", e);
+        } finally {
+            replaceLock.readLock().unlock();
         }
     }
 
@@ -148,13 +329,147 @@ public void updateTodo(Todo todo) {
      * @param id The ID of the todo to delete
      */
     public void deleteTodo(Long id) {
-        List<Todo> todos = loadTodos();
-        todos.removeIf(todo -> todo.getId().equals(id));
+        replaceLock.readLock().lock();
         try {
-            saveTodos(todos);
+            CompletableFuture<Void> done;
+            synchronized (stripe(id)) {
+                done = submit(id, null);
+            }
+            TodoWriteQueue.await(done);
         } catch (IOException e) {
             logger.error("Failed to delete todo", e);
             throw new RuntimeException("Failed to delete todo", e);
+        } finally {
+            replaceLock.readLock().unlock();
+        }
+    }
+
+    private Object stripe(long id) {
+        long h = id * 0x9E3779B97F4A7C15L;
+        return stripes[(int) (h >>> 58)];
+    }
+
+    /**
+     * Applies a write to the index and submits it to the write queue. Call
+     * it holding the ID's stripe, so the index and the queue see writes to
+     * one ID in the same order.
+     *
+     * @param value private copy to index and store, or null to delete
+     * @return completes once the write is durable
+     */
+    private CompletableFuture<Void> submit(long id, Todo value) throws IOException {
+        IndexedWrite write;
+        indexLock.writeLock().lock();
+        try {
+            write = new IndexedWrite(id, index.get(id), pendingWrites.get(id));
+            setIndexed(id, value);
+            pendingWrites.put(id, write);
+        } finally {
+            indexLock.writeLock().unlock();
+        }
+        TodoMutation mutation = value == null ? TodoMutation.delete(id) : TodoMutation.put(value);
+        CompletableFuture<Void> done = writeQueue.submit(mutation, () -> undo(write));
+        done.thenRun(() -> settle(write));
+        return done;
+    }
+
+    /**
+     * Puts back the value a failed write replaced, unless a later write has
+     * replaced it in turn. Failed writes it replaced are skipped, so the
+     * index falls back to the newest write that can still become durable.
+     */
+    private void undo(IndexedWrite write) {
+        indexLock.writeLock().lock();
+        try {
+            write.failed = true;
+            if (pendingWrites.get(write.id) != write) {
+                return;
+            }
+            IndexedWrite restored = write;
+            while (restored.prior != null && restored.prior.failed) {
+                restored = restored.prior;
+            }
+            setIndexed(write.id, restored.previous);
+            if (restored.prior == null || restored.prior.durable) {
+                pendingWrites.remove(write.id);
+            } else {
+                pendingWrites.put(write.id, restored.prior);
+            }
+        } finally {
+            indexLock.writeLock().unlock();
+        }
+    }
+
+    private void settle(IndexedWrite write) {
+        indexLock.writeLock().lock();
+        try {
+            write.durable = true;
+            write.prior = null;
+            pendingWrites.remove(write.id, write);
+        } finally {
+            indexLock.writeLock().unlock();
+        }
+    }
+
+    // Call holding the index write lock
+    private void setIndexed(long id, Todo value) {
+        Todo previous = value == null ? index.remove(id) : index.get(id);
+        if (previous != null) {
+            fingerprint -= TodoFingerprint.of(previous);
+        }
+        if (value != null) {
+            index.put(id, value);
+            fingerprint += TodoFingerprint.of(value);
+        }
+    }
+
+    private static LongTodoMap buildIndex(List<Todo> todos) {
+        LongTodoMap map = new LongTodoMap(todos.size());
+        for (Todo todo : todos) {
+            map.put(todo.getId(), copy(todo));
+        }
+        return map;
+    }
+
+    private static Todo copy(Todo todo) {
+        Todo copy = new Todo();
+        copy.setId(todo.getId());
+        copy.setTitle(todo.getTitle());
+        copy.setDescription(todo.getDescription());
+        copy.setCompleted(todo.isCompleted());
+        copy.setCreatedAt(todo.getCreatedAt());
+        copy.setCompletedAt(todo.getCompletedAt());
+        return copy;
+    }
+
+    /**
+     * A write applied to the index before it is durable, with what it
+     * replaced there. Fields are guarded by indexLock.
+     */
+    private static final class IndexedWrite {
+        private final long id;
+        private final Todo previous;
+        // The not yet durable write whose value this one replaced, if any
+        private IndexedWrite prior;
+        private boolean failed;
+        private boolean durable;
+
+        private IndexedWrite(long id, Todo previous, IndexedWrite prior) {
+            this.id = id;
+            this.previous = previous;
+            this.prior = prior;
+        }
+    }
+
+    /**
+     * Flushes and closes the underlying store.
+     */
+    public void close() {
+        writeQueue.close();
+        try {
+            store.close();
+        } catch (IOException e) {
+            logger.error("Failed to close storage", e);
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,64 @@
+package com.example.todo.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+
+import com.example.todo.model.Todo;
+
+/**
+ * On-disk format behind TodoStorage.
+ * Implementations must be safe for concurrent use.
+ */
+public interface TodoStore extends Closeable {
+
+    /**
+     * Reads every stored todo.
+     *
+     * @return all stored todos
+     * @throws IOException if the store cannot be read
+     */
+    List<Todo> readAll() throws IOException;
+
+    /**
+     * Inserts a todo, or replaces the stored todo with the same ID.
+     *
+     * @param todo the todo to store, with its ID set
+     * @throws IOException if the todo cannot be written
+     */
+    void write(Todo todo) throws IOException;
+
+    /**
+     * Removes a todo. Removing an unknown ID is a no-op.
+     *
+     * @param id the ID of the todo to remove
+     * @throws IOException if the removal cannot be written
+     */
+    void delete(long id) throws IOException;
+
+    /**
+     * Applies mutations in order. Implementations make the whole batch
+     * durable with a single write or force where the format allows; the
+     * default applies them one at a time.
+     *
+     * @param mutations the mutations to apply, in order
+     * @throws IOException if the batch cannot be written
+     */
+    default void apply(List<TodoMutation> mutations) throws IOException {
+        for (TodoMutation mutation : mutations) {
+            if (mutation.isDelete()) {
+                delete(mutation.getId());
+            } else {
+                write(mutation.getTodo());
+            }
+        }
+    }
+
+    /**
+     * Replaces the whole contents of the store.
+     *
+     * @param todos the complete list of todos to keep
+     * @throws IOException if the todos cannot be written
+     */
+    void replaceAll(List<Todo> todos) throws IOException;
+}
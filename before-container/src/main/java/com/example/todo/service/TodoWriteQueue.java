@@ -0,0 +1,187 @@
+package com.example.todo.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Group-commit write pipeline in front of a TodoStore.
+ * Callers submit mutations to a bounded queue, blocking while it is full.
+ * A dedicated writer thread drains everything pending (up to maxBatch),
+ * applies it with one {@link TodoStore#apply(List)} call, so the batch costs
+ * one durable write, and then completes every caller in the batch.
+ * Mutations are applied in the order they were submitted.
+ */
+final class TodoWriteQueue implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(TodoWriteQueue.class);
+
+    private final TodoStore store;
+    private final BlockingQueue<Pending> queue;
+    private final int maxBatch;
+    private final Thread writer;
+    private volatile boolean closed;
+
+    /**
+     * Starts the writer thread.
+     *
+     * @param store the store batches are applied to
+     * @param capacity mutations that may wait before submitters block
+     * @param maxBatch most mutations applied in one batch
+     */
+    TodoWriteQueue(TodoStore store, int capacity, int maxBatch) {
+        this.store = store;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.maxBatch = maxBatch;
+        this.writer = new Thread(this::run, "todo-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Submits a mutation without waiting for it to be written. If the
+     * mutation fails or the queue is closed, onFailure runs before the
+     * returned future completes; it runs on the writer thread in submission
+     * order, unless the failure is detected here.
+     *
+     * @param mutation the mutation to apply
+     * @param onFailure undoes whatever the caller did in anticipation of the write
+     * @return completes once the batch containing the mutation is durable
+     * @throws InterruptedIOException if interrupted waiting for room in the queue
+     */
+    CompletableFuture<Void> submit(TodoMutation mutation, Runnable onFailure) throws InterruptedIOException {
+        Pending pending = new Pending(mutation, onFailure);
+        if (closed) {
+            pending.fail(new IOException("Todo write queue is closed"));
+            return pending.done;
+        }
+        try {
+            queue.put(pending);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            pending.fail(new InterruptedIOException("Interrupted waiting for todo write"));
+            throw new InterruptedIOException("Interrupted waiting for todo write");
+        }
+        // close may have drained the queue for the last time while this
+        // put was in progress; whoever removes the entry completes it
+        if (closed && queue.remove(pending)) {
+            pending.fail(new IOException("Todo write queue is closed"));
+        }
+        return pending.done;
+    }
+
+    /**
+     * Waits until a submitted mutation is durable.
+     * If the wait is interrupted the mutation may still be applied later.
+     *
+     * @param done the future returned by submit
+     * @throws IOException if the batch could not be written or the queue is closed
+     */
+    static void await(CompletableFuture<Void> done) throws IOException {
+        try {
+            done.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for todo write");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException("Todo write failed", cause);
+        }
+    }
+
+    /**
+     * Stops accepting mutations, lets the writer apply everything queued, and waits for it.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        failRemaining();
+    }
+
+    private void run() {
+        List<Pending> batch = new ArrayList<>(maxBatch);
+        while (!closed || !queue.isEmpty()) {
+            try {
+                Pending first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, maxBatch - 1);
+                applyBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } finally {
+                batch.clear();
+            }
+        }
+        failRemaining();
+    }
+
+    private void applyBatch(List<Pending> batch) {
+        List<TodoMutation> mutations = new ArrayList<>(batch.size());
+        for (Pending pending : batch) {
+            mutations.add(pending.mutation);
+        }
+        try {
+            store.apply(mutations);
+            logger.debug("Applied batch of {} todo mutations", mutations.size());
+            for (Pending pending : batch) {
+                pending.done.complete(null);
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.error("Failed to apply batch of {} todo mutations", mutations.size(), e);
+            for (Pending pending : batch) {
+                pending.fail(e);
+            }
+        }
+    }
+
+    private void failRemaining() {
+        Pending pending;
+        while ((pending = queue.poll()) != null) {
+            pending.fail(new IOException("Todo write queue is closed"));
+        }
+    }
+
+    private static final class Pending {
+        private final TodoMutation mutation;
+        private final Runnable onFailure;
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        private Pending(TodoMutation mutation, Runnable onFailure) {
+            this.mutation = mutation;
+            this.onFailure = onFailure;
+        }
+
+        private void fail(Exception e) {
+            try {
+                onFailure.run();
+            } catch (RuntimeException rollbackFailure) {
+                logger.error("Failed to undo todo mutation {}", mutation.getId(), rollbackFailure);
+            }
+            done.completeExceptionally(e);
+        }
+    }
+}
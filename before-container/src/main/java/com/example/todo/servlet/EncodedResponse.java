@@ -0,0 +1,91 @@
+package com.example.todo.servlet;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.zip.GZIPOutputStream;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * A JSON response body encoded once and served as bytes until the data
+ * version it was encoded from changes. The gzip variant is compressed on
+ * the first request that accepts it and kept alongside the plain bytes.
+ */
+final class EncodedResponse {
+    // Below this size gzip framing costs more than it saves
+    private static final int MIN_GZIP_BYTES = 1024;
+
+    private final long version;
+    private final byte[] json;
+    private volatile byte[] gzip;
+
+    EncodedResponse(long version, byte[] json) {
+        this.version = version;
+        this.json = json;
+    }
+
+    long getVersion() {
+        return version;
+    }
+
+    /**
+     * Writes the body straight to the response output stream, gzip-compressed
+     * when the client accepts it.
+     *
+     * @param req The HTTP request, for its Accept-Encoding header
+     * @param resp The HTTP response
+     * @throws IOException If an I/O error occurs
+     */
+    void writeTo(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        byte[] body = json;
+        resp.setContentType("application/json");
+        resp.setCharacterEncoding("UTF-8");
+        if (json.length >= MIN_GZIP_BYTES) {
+            resp.addHeader("Vary", "Accept-Encoding");
+            if (acceptsGzip(req.getHeader("Accept-Encoding"))) {
+                body = gzip();
+                resp.setHeader("Content-Encoding", "gzip");
+            }
+        }
+        resp.setContentLength(body.length);
+        resp.getOutputStream().write(body);
+    }
+
+    private byte[] gzip() throws IOException {
+        byte[] compressed = gzip;
+        if (compressed == null) {
+            // Racing requests may both compress; either result is correct
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream(json.length / 4 + 64);
+            try (GZIPOutputStream out = new GZIPOutputStream(buffer)) {
+                out.write(json);
+            }
+            compressed = buffer.toByteArray();
+            gzip = compressed;
+        }
+        return compressed;
+    }
+
+    /**
+     * Checks an Accept-Encoding header for gzip, honouring an explicit q=0.
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            String name = parts[0].trim();
+            if (!name.equalsIgnoreCase("gzip") && !name.equals("*")) {
+                continue;
+            }
+            for (int i = 1; i < parts.length; i++) {
+                if (parts[i].trim().matches("q=0(\\.0{0,3})?")) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+}
@@ -24,10 +24,13 @@ public class TodoServlet extends HttpServlet {
     private final TodoStorage storage;
     private final TodoCache cache;
     private final ObjectMapper objectMapper;
+    // The todo list as JSON, reused until the cached list version moves on
+    private volatile EncodedResponse encodedTodos;
 
     public TodoServlet() {
         this.storage = new TodoStorage();
         this.cache = new TodoCache();
+        this.cache.enableSnapshots(storage::getFingerprint);
         this.objectMapper = new ObjectMapper();
         logger.info("TodoServlet initialized");
     }
@@ -48,62 +51,28 @@ protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws Se
         
         try {
             if (pathInfo == null || pathInfo.equals("/")) {
-                // Get all todos
-                logger.debug("Retrieving all todos");
-                List<Todo> todos = cache.getCachedTodos();
-                if (todos == null) {
-                    logger.debug("Cache miss for todos list, loading from storage");
-                    todos = storage.loadTodos();
-                    cache.cacheTodos(todos);
-                    logger.debug("Cached {} todos", todos.size());
-                } else {
-                    logger.debug("Retrieved {} todos from cache", todos.size());
+                // Get all todos, as bytes encoded for the current list version
+                EncodedResponse encoded = encodedTodos;
+                long version = cache.getListVersion();
+                if (encoded == null || encoded.getVersion() != version) {
+                    logger.debug("Retrieving all todos");
+                    List<Todo> todos = cache.getTodos(storage::loadTodos);
+                    logger.debug("Retrieved {} todos", todos.size());
+                    encoded = new EncodedResponse(version, objectMapper.writeValueAsBytes(todos));
+                    encodedTodos = encoded;
                 }
-                sendJsonResponse(resp, todos);
+                encoded.writeTo(req, resp);
             } else {
                 // Get single todo
                 try {
                     Long id = Long.parseLong(pathInfo.substring(1));
                     logger.debug("Retrieving todo with id: {}", id);
                     
-                    Todo todo = cache.getCachedTodo(id);
-                    if (todo == null) {
-                        logger.debug("Cache miss for todo id: {}", id);
-                        // First check if the todos list is cached to avoid loading from storage
-                        List<Todo> cachedTodos = cache.getCachedTodos();
-                        if (cachedTodos != null) {
-                            todo = cachedTodos.stream()
-                                    .filter(t -> t.getId().equals(id))
-                                    .findFirst()
-                                    .orElse(null);
-                            
-                            if (todo != null) {
-                                logger.debug("Found todo in cached list, caching individual todo: {}", todo.getId());
-                                cache.cacheTodo(todo);
-                            }
-                        }
-                        
-                        // If not found in cached list, load from storage
-                        if (todo == null) {
-                            List<Todo> todos = storage.loadTodos();
-                            todo = todos.stream()
-                                    .filter(t -> t.getId().equals(id))
-                                    .findFirst()
-                                    .orElse(null);
-                            if (todo != null) {
-                                logger.debug("Found todo in storage, caching: {}", todo.getId());
-                                cache.cacheTodo(todo);
-                            } else {
-                                logger.warn("Todo with id: {} not found", id);
-                            }
-                        }
-                    } else {
-                        logger.debug("Retrieved todo from cache: {}", todo.getId());
-                    }
-                    
+                    Todo todo = cache.getTodo(id, storage::getTodo);
                     if (todo != null) {
                         sendJsonResponse(resp, todo);
                     } else {
+                        logger.warn("Todo with id: {} not found", id);
                         resp.setStatus(HttpServletResponse.SC_NOT_FOUND);
                     }
                 } catch (NumberFormatException e) {
@@ -135,11 +104,8 @@ protected void doPost(HttpServletRequest req, HttpServletResponse resp) throws S
             todo = storage.addTodo(todo);
             logger.info("Created new todo with id: {}", todo.getId());
             
-            cache.invalidateCache();
-            logger.debug("Cache invalidated after todo creation");
-            
-            cache.cacheTodo(todo);
-            logger.debug("New todo cached: {}", todo.getId());
+            cache.applyUpsert(todo);
+            logger.debug("New todo applied to cache: {}", todo.getId());
             
             sendJsonResponse(resp, todo);
             resp.setStatus(HttpServletResponse.SC_CREATED);
@@ -175,38 +141,26 @@ protected void doPut(HttpServletRequest req, HttpServletResponse resp) throws Se
             Todo updatedTodo = objectMapper.readValue(req.getReader(), Todo.class);
             logger.debug("Parsed updated todo from request: {}", updatedTodo.getTitle());
             
-            // Get the existing todo
-            List<Todo> todos = storage.loadTodos();
-            Todo existingTodo = todos.stream()
-                    .filter(t -> t.getId().equals(id))
-                    .findFirst()
-                    .orElse(null);
-                    
+            // Update only the provided fields, atomically with respect to other writers
+            Todo existingTodo = storage.modifyTodo(id, todo -> {
+                if (updatedTodo.getTitle() != null) {
+                    todo.setTitle(updatedTodo.getTitle());
+                }
+                if (updatedTodo.getDescription() != null) {
+                    todo.setDescription(updatedTodo.getDescription());
+                }
+                todo.setCompleted(updatedTodo.isCompleted());
+            });
+
             if (existingTodo == null) {
                 logger.warn("Todo with id: {} not found for update", id);
                 resp.setStatus(HttpServletResponse.SC_NOT_FOUND);
                 return;
             }
-
-            logger.debug("Found existing todo: {}", existingTodo.getTitle());
-            
-            // Update only the provided fields
-            if (updatedTodo.getTitle() != null) {
-                existingTodo.setTitle(updatedTodo.getTitle());
-            }
-            if (updatedTodo.getDescription() != null) {
-                existingTodo.setDescription(updatedTodo.getDescription());
-            }
-            existingTodo.setCompleted(updatedTodo.isCompleted());
-            
-            storage.updateTodo(existingTodo);
             logger.info("Updated todo with id: {}", existingTodo.getId());
             
-            cache.invalidateCache();
-            logger.debug("Cache invalidated after todo update");
-            
-            cache.cacheTodo(existingTodo);
-            logger.debug("Updated todo cached: {}", existingTodo.getId());
+            cache.applyUpsert(existingTodo);
+            logger.debug("Updated todo applied to cache: {}", existingTodo.getId());
             
             sendJsonResponse(resp, existingTodo);
         } catch (NumberFormatException e) {
@@ -244,11 +198,8 @@ protected void doDelete(HttpServletRequest req, HttpServletResponse resp) throws
             storage.deleteTodo(id);
             logger.info("Deleted todo with id: {}", id);
             
-            cache.invalidateCache();
-            logger.debug("Cache invalidated after todo deletion");
-            
-            cache.removeTodoFromCache(id);
-            logger.debug("Removed todo from cache: {}", id);
+            cache.applyDelete(id);
+            logger.debug("Deleted todo removed from cache: {}", id);
             
             resp.setStatus(HttpServletResponse.SC_NO_CONTENT);
         } catch (NumberFormatException e) {
@@ -260,6 +211,16 @@ protected void doDelete(HttpServletRequest req, HttpServletResponse resp) throws
         }
     }
 
+    /**
+     * Flushes and closes storage when the servlet is taken out of service.
+     */
+    @Override
+    public void destroy() {
+        cache.close();
+        storage.close();
+        logger.info("TodoServlet destroyed");
+    }
+
     /**
      * Sends a JSON response to the client.
      *
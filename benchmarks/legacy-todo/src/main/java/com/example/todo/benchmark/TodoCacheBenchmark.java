@@ -0,0 +1,76 @@
+package com.example.todo.benchmark;
+
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import com.example.todo.model.Todo;
+import com.example.todo.service.TodoCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Hit and miss paths of the EhCache-backed TodoCache under concurrent readers,
+ * and the in-place update a write applies to the cached entries, with values
+ * on heap (offHeapBytes=0) or serialized in the off-heap tier.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class TodoCacheBenchmark {
+    private static final int CACHED_TODOS = 500;
+
+    @Param({"0", "67108864"})
+    long offHeapBytes;
+
+    TodoCache cache;
+
+    @Setup
+    public void setUp() {
+        Properties props = new Properties();
+        props.setProperty("cache.name", "todoCache");
+        props.setProperty("cache.offHeapBytes", Long.toString(offHeapBytes));
+        cache = new TodoCache(props);
+        cache.invalidateCache();
+        List<Todo> todos = TodoFixtures.todos(CACHED_TODOS);
+        cache.cacheTodos(todos);
+        for (Todo todo : todos) {
+            cache.cacheTodo(todo);
+        }
+    }
+
+    @Benchmark
+    public List<Todo> listHit() {
+        return cache.getCachedTodos();
+    }
+
+    @Benchmark
+    public Todo todoHit() {
+        return cache.getCachedTodo(ThreadLocalRandom.current().nextLong(1, CACHED_TODOS + 1));
+    }
+
+    @Benchmark
+    public Todo todoMiss() {
+        return cache.getCachedTodo(ThreadLocalRandom.current().nextLong(CACHED_TODOS + 1, Long.MAX_VALUE));
+    }
+
+    @Benchmark
+    public void applyUpsert() {
+        cache.applyUpsert(TodoFixtures.todo(ThreadLocalRandom.current().nextLong(1, CACHED_TODOS + 1)));
+    }
+}
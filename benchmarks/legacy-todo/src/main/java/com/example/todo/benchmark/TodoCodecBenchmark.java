@@ -0,0 +1,58 @@
+package com.example.todo.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.example.todo.model.Todo;
+import com.example.todo.service.CacheValueCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Encode and decode cost of TodoCache values with each cache value codec,
+ * the work done per off-heap hit and per disk store write or read.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TodoCodecBenchmark {
+    @Param({"java", "binary"})
+    String codecName;
+
+    @Param({"1", "500"})
+    int size;
+
+    CacheValueCodec codec;
+    Object value;
+    byte[] encoded;
+
+    @Setup
+    public void setUp() {
+        codec = CacheValueCodec.forName(codecName);
+        List<Todo> todos = TodoFixtures.todos(size);
+        value = size == 1 ? todos.get(0) : todos;
+        encoded = codec.encode(value);
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return codec.encode(value);
+    }
+
+    @Benchmark
+    public Object decode() {
+        return codec.decode(encoded);
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.todo.benchmark;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import com.example.todo.model.Todo;
+
+/**
+ * Builds deterministic Todo data sets for the benchmarks.
+ */
+final class TodoFixtures {
+
+    private TodoFixtures() {
+    }
+
+    /**
+     * Creates a todo with realistic field sizes.
+     *
+     * @param id the ID to assign
+     * @return a populated todo, every third one completed
+     */
+    static Todo todo(long id) {
+        Todo todo = new Todo();
+        todo.setId(id);
+        todo.setTitle("Benchmark todo " + id);
+        todo.setDescription("Description for benchmark todo " + id + " with a few more words of detail");
+        todo.setCreatedAt(new Date(1700000000000L + id * 1000));
+        if (id % 3 == 0) {
+            todo.setCompleted(true);
+        }
+        return todo;
+    }
+
+    /**
+     * Creates a list of todos with IDs 1..count.
+     *
+     * @param count number of todos to create
+     * @return the todos in ID order
+     */
+    static List<Todo> todos(int count) {
+        List<Todo> todos = new ArrayList<>(count);
+        for (long id = 1; id <= count; id++) {
+            todos.add(todo(id));
+        }
+        return todos;
+    }
+}
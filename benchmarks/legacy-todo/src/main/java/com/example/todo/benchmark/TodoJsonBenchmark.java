@@ -0,0 +1,79 @@
+package com.example.todo.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.example.todo.model.Todo;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Jackson (de)serialization cost of a single Todo and of Todo lists,
+ * the work TodoServlet.sendJsonResponse and TodoStorage.loadTodos do per call.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TodoJsonBenchmark {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @State(Scope.Benchmark)
+    public static class SingleTodo {
+        Todo todo;
+        byte[] json;
+
+        @Setup
+        public void setUp() throws Exception {
+            todo = TodoFixtures.todo(42);
+            json = MAPPER.writeValueAsBytes(todo);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class TodoList {
+        @Param({"100", "10000"})
+        int size;
+
+        List<Todo> todos;
+        byte[] json;
+
+        @Setup
+        public void setUp() throws Exception {
+            todos = TodoFixtures.todos(size);
+            json = MAPPER.writeValueAsBytes(todos);
+        }
+    }
+
+    @Benchmark
+    public byte[] serializeTodo(SingleTodo state) throws Exception {
+        return MAPPER.writeValueAsBytes(state.todo);
+    }
+
+    @Benchmark
+    public Todo deserializeTodo(SingleTodo state) throws Exception {
+        return MAPPER.readValue(state.json, Todo.class);
+    }
+
+    @Benchmark
+    public byte[] serializeList(TodoList state) throws Exception {
+        return MAPPER.writeValueAsBytes(state.todos);
+    }
+
+    @Benchmark
+    public List<Todo> deserializeList(TodoList state) throws Exception {
+        return MAPPER.readValue(state.json, new TypeReference<List<Todo>>() {});
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.todo.benchmark;
+
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import com.example.todo.model.Todo;
+import com.example.todo.service.TodoStorage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * File-based TodoStorage at increasing data set sizes, for each storage format:
+ * full load and save, plus the single-item update a PUT performs.
+ * Storage files live under target/benchmark-data.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class TodoStorageBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    int size;
+
+    @Param({"json", "log", "mapped"})
+    String format;
+
+    TodoStorage storage;
+    List<Todo> todos;
+
+    @Setup
+    public void setUp() throws Exception {
+        Properties props = new Properties();
+        props.setProperty("storage.path", "target/benchmark-data/" + format + "/tasks.json");
+        props.setProperty("storage.format", format);
+        todos = TodoFixtures.todos(size);
+        storage = new TodoStorage(props);
+        storage.saveTodos(todos);
+    }
+
+    @TearDown
+    public void tearDown() {
+        storage.close();
+    }
+
+    @Benchmark
+    public List<Todo> loadTodos() {
+        return storage.loadTodos();
+    }
+
+    @Benchmark
+    public void saveTodos() throws Exception {
+        storage.saveTodos(todos);
+    }
+
+    @Benchmark
+    public void updateTodo() {
+        storage.updateTodo(todos.get(ThreadLocalRandom.current().nextInt(size)));
+    }
+}
@@ -0,0 +1,53 @@
+#!/bin/bash
+
+# Colors for output
+RED='\033[0;31m'
+GREEN='\033[0;32m'
+YELLOW='\033[1;33m'
+NC='\033[0m' # No Color
+
+# Function to display usage
+usage() {
+    echo "Usage: $0 [all|legacy|container] [extra JMH options]"
+    echo "  all       - Build and run both benchmark suites (default)"
+    echo "  legacy    - Run the before-container benchmarks"
+    echo "  container - Run the after-container benchmarks"
+    echo ""
+    echo "Example: $0 legacy -p size=1000 TodoStorageBenchmark"
+}
+
+SCRIPT_DIR="$(cd "$(dirname "$0")" && pwd)"
+RESULTS_DIR="$SCRIPT_DIR/results"
+TIMESTAMP=$(date +%Y%m%d-%H%M%S)
+
+# Runs one suite and writes JMH JSON results for later comparison
+run_suite() {
+    local module=$1
+    shift
+    local result="$RESULTS_DIR/$module-$TIMESTAMP.json"
+    echo -e "${YELLOW}Running $module benchmarks...${NC}"
+    (cd "$SCRIPT_DIR/$module" && java -jar target/benchmarks.jar -rf json -rff "$result" "$@") || exit 1
+    echo -e "${GREEN}Results written to $result${NC}"
+}
+
+SUITE=${1:-all}
+[ $# -gt 0 ] && shift
+
+case "$SUITE" in
+    all|legacy|container)
+        mkdir -p "$RESULTS_DIR"
+        (cd "$SCRIPT_DIR" && mvn -B -q clean package) || exit 1
+        ;;
+    help|--help|-h)
+        usage
+        exit 0
+        ;;
+    *)
+        echo -e "${RED}Invalid suite: $SUITE${NC}"
+        usage
+        exit 1
+        ;;
+esac
+
+[ "$SUITE" = "all" ] || [ "$SUITE" = "legacy" ] && run_suite legacy-todo "$@"
+[ "$SUITE" = "all" ] || [ "$SUITE" = "container" ] && run_suite todo "$@"
@@ -0,0 +1,86 @@
+package com.example.todo.benchmark;
+
+import com.example.todo.model.Todo;
+import com.example.todo.service.CachingTodoStorage;
+import com.example.todo.service.TodoCursor;
+import com.example.todo.service.TodoQuery;
+import com.example.todo.service.TodoStorage;
+import com.zaxxer.hikari.HikariDataSource;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * CRUD paths of the JDBC TodoStorage, with and without the in-process cache,
+ * against an embedded PostgreSQL-compatible H2 database.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JdbcTodoStorageBenchmark {
+    private static final int SEEDED_TODOS = 10000;
+
+    @Param({"false", "true"})
+    boolean cached;
+
+    HikariDataSource dataSource;
+    TodoStorage storage;
+    TodoQuery firstPage;
+
+    @Setup
+    public void setUp() {
+        dataSource = TodoFixtures.dataSource("storage_" + cached);
+        storage = cached
+            ? new CachingTodoStorage(dataSource, 10000, 50000, Duration.ofMinutes(5))
+            : new TodoStorage(dataSource);
+        for (int n = 1; n <= SEEDED_TODOS; n++) {
+            storage.createTodo(TodoFixtures.todo(n));
+        }
+        firstPage = new TodoQuery(TodoQuery.DEFAULT_LIMIT, null, null, null);
+    }
+
+    @TearDown
+    public void tearDown() {
+        storage.close();
+    }
+
+    @Benchmark
+    public Todo getTodo() {
+        return storage.getTodo(ThreadLocalRandom.current().nextInt(1, SEEDED_TODOS + 1));
+    }
+
+    @Benchmark
+    public TodoCursor streamFirstPage(Blackhole blackhole) throws Exception {
+        return storage.streamTodos(firstPage, blackhole::consume);
+    }
+
+    @Benchmark
+    public Todo updateTodo() {
+        int id = ThreadLocalRandom.current().nextInt(1, SEEDED_TODOS + 1);
+        Todo todo = TodoFixtures.todo(id);
+        todo.setId(id);
+        return storage.updateTodo(todo);
+    }
+
+    @Benchmark
+    public boolean createAndDeleteTodo() {
+        Todo created = storage.createTodo(TodoFixtures.todo(SEEDED_TODOS + 1));
+        return storage.deleteTodo(created.getId());
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.todo.benchmark;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import javax.servlet.ServletConfig;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Minimal servlet container stand-ins so servlets can be driven in-process.
+ * Unhandled methods return null, false or zero.
+ */
+final class ServletStubs {
+
+    private ServletStubs() {
+    }
+
+    /**
+     * Creates a servlet config whose context exposes the given attributes.
+     *
+     * @param attributes servlet context attributes
+     * @return the servlet config
+     */
+    static ServletConfig config(Map<String, Object> attributes) {
+        ServletContext context = proxy(ServletContext.class, (name, args) ->
+            "getAttribute".equals(name) ? attributes.get((String) args[0]) : null);
+        return proxy(ServletConfig.class, (name, args) -> {
+            switch (name) {
+                case "getServletContext":
+                    return context;
+                case "getServletName":
+                    return "benchmark";
+                default:
+                    return null;
+            }
+        });
+    }
+
+    /**
+     * Creates a request.
+     *
+     * @param method HTTP method
+     * @param pathInfo path after the servlet mapping, or null
+     * @param parameters query parameters
+     * @return the request
+     */
+    static HttpServletRequest request(String method, String pathInfo, Map<String, String> parameters) {
+        return proxy(HttpServletRequest.class, (name, args) -> {
+            switch (name) {
+                case "getMethod":
+                    return method;
+                case "getPathInfo":
+                    return pathInfo;
+                case "getParameter":
+                    return parameters.get((String) args[0]);
+                case "getProtocol":
+                    return "HTTP/1.1";
+                case "getDateHeader":
+                    return -1L;
+                default:
+                    return null;
+            }
+        });
+    }
+
+    /**
+     * Creates a response whose body is written to the given stream.
+     *
+     * @param body receives the response body
+     * @return the response
+     */
+    static HttpServletResponse response(OutputStream body) {
+        ServletOutputStream out = new ServletOutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                body.write(b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                body.write(b, off, len);
+            }
+
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setWriteListener(WriteListener writeListener) {
+            }
+        };
+        return proxy(HttpServletResponse.class, (name, args) -> {
+            switch (name) {
+                case "getOutputStream":
+                    return out;
+                case "getWriter":
+                    return new PrintWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+                case "getCharacterEncoding":
+                    return "UTF-8";
+                default:
+                    return null;
+            }
+        });
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+        Object invoke(String method, Object[] args);
+    }
+
+    private static <T> T proxy(Class<T> type, Handler handler) {
+        Object proxy = Proxy.newProxyInstance(ServletStubs.class.getClassLoader(), new Class<?>[] {type},
+            (self, method, args) -> {
+                Object result = handler.invoke(method.getName(), args);
+                if (result != null || !method.getReturnType().isPrimitive()) {
+                    return result;
+                }
+                Class<?> returnType = method.getReturnType();
+                if (returnType == boolean.class) {
+                    return false;
+                }
+                if (returnType == long.class) {
+                    return 0L;
+                }
+                if (returnType == void.class) {
+                    return null;
+                }
+                return 0;
+            });
+        return type.cast(proxy);
+    }
+}
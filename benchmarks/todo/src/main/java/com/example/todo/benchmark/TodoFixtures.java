@@ -0,0 +1,48 @@
+package com.example.todo.benchmark;
+
+import com.example.todo.model.Todo;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Builds the embedded database and deterministic Todo data for the benchmarks.
+ */
+final class TodoFixtures {
+
+    private TodoFixtures() {
+    }
+
+    /**
+     * Creates a pooled in-memory H2 database running in PostgreSQL compatibility mode.
+     * Each call gets its own database, so forks and states never share rows.
+     *
+     * @param name unique database name
+     * @return the connection pool
+     */
+    static HikariDataSource dataSource(String name) {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName("benchmark-pool");
+        config.setJdbcUrl("jdbc:h2:mem:" + name
+            + ";MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH;DB_CLOSE_DELAY=-1");
+        config.setUsername("sa");
+        config.setMaximumPoolSize(8);
+        return new HikariDataSource(config);
+    }
+
+    /**
+     * Creates an unsaved todo with realistic field sizes.
+     *
+     * @param n sequence number used in the text fields and timestamp
+     * @return a populated todo without an ID, every third one completed
+     */
+    static Todo todo(long n) {
+        Todo todo = new Todo();
+        todo.setTitle("Benchmark todo " + n);
+        todo.setDescription("Description for benchmark todo " + n + " with a few more words of detail");
+        todo.setCreatedAt(1700000000000L + n * 1000);
+        if (n % 3 == 0) {
+            todo.setCompleted(true);
+        }
+        return todo;
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.todo.benchmark;
+
+import com.example.todo.service.CachingTodoStorage;
+import com.example.todo.service.TodoStorage;
+import com.example.todo.servlet.TodoServlet;
+import com.zaxxer.hikari.HikariDataSource;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import javax.servlet.http.HttpServletRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * End-to-end TodoServlet GET handling, including query parsing, storage access
+ * and JSON streaming into the response, with the body discarded.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TodoServletBenchmark {
+    private static final int SEEDED_TODOS = 1000;
+
+    @Param({"false", "true"})
+    boolean cached;
+
+    HikariDataSource dataSource;
+    TodoStorage storage;
+    TodoServlet servlet;
+    HttpServletRequest listRequest;
+    HttpServletRequest getRequest;
+    OutputStream body;
+
+    @Setup
+    public void setUp(Blackhole blackhole) throws Exception {
+        dataSource = TodoFixtures.dataSource("servlet_" + cached);
+        storage = cached
+            ? new CachingTodoStorage(dataSource, 10000, 50000, Duration.ofMinutes(5))
+            : new TodoStorage(dataSource);
+        for (int n = 1; n <= SEEDED_TODOS; n++) {
+            storage.createTodo(TodoFixtures.todo(n));
+        }
+
+        servlet = new TodoServlet();
+        servlet.init(ServletStubs.config(Collections.singletonMap("todoStorage", storage)));
+        listRequest = ServletStubs.request("GET", null, Collections.emptyMap());
+        getRequest = ServletStubs.request("GET", "/" + (SEEDED_TODOS / 2), Collections.emptyMap());
+        body = new OutputStream() {
+            @Override
+            public void write(int b) {
+                blackhole.consume(b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                blackhole.consume(b);
+            }
+        };
+    }
+
+    @TearDown
+    public void tearDown() {
+        storage.close();
+    }
+
+    @Benchmark
+    public void listFirstPage() throws Exception {
+        servlet.service(listRequest, ServletStubs.response(body));
+    }
+
+    @Benchmark
+    public void getById() throws Exception {
+        servlet.service(getRequest, ServletStubs.response(body));
+    }
+}
@@ -215,12 +215,12 @@ spec:
                   key: password
           livenessProbe:
             httpGet:
-              path: {{ .Values.tomcat.contextPath }}/health
+              path: {{ .Values.tomcat.contextPath }}/health/live
               port: 8080
             initialDelaySeconds: 60
           readinessProbe:
             httpGet:
-              path: {{ .Values.tomcat.contextPath }}/health
+              path: {{ .Values.tomcat.contextPath }}/health/ready
               port: 8080
             initialDelaySeconds: 30
           resources: